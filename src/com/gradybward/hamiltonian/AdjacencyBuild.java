@@ -0,0 +1,178 @@
+package com.gradybward.hamiltonian;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiPredicate;
+import java.util.function.BooleanSupplier;
+
+/**
+ * How a solver evaluates the adjacency function to build its graph.
+ *
+ * <p>
+ * By default, the function is called once for every ordered pair of distinct elements, which is
+ * N * (N - 1) calls. When it's expensive, that can take longer than the solve itself, so:
+ * <ul>
+ * <li>{@link #undirected()} only evaluates pairs (i, j) with i &lt; j, and records the answer in
+ * both directions, halving the calls. Only use it if the function is symmetric.</li>
+ * <li>{@link #parallel(Executor, int)} spreads the calls across that many of the executor's threads
+ * (and the calling thread), so the function must be safe to call concurrently.</li>
+ * </ul>
+ *
+ * <p>
+ * Either way, answers are written straight into the solver's neighbor bitstrings, one row per
+ * element, and each row is only ever written by one thread.
+ */
+public final class AdjacencyBuild {
+
+  private static final AdjacencyBuild EVERY_ORDERED_PAIR = new AdjacencyBuild(false, null, 0);
+
+  private final boolean undirected;
+  private final Executor executor;
+  // How many tasks to run on the executor, alongside the calling thread.
+  private final int threads;
+
+  private AdjacencyBuild(boolean undirected, Executor executor, int threads) {
+    this.undirected = undirected;
+    this.executor = executor;
+    this.threads = threads;
+  }
+
+  /** Sequentially evaluates every ordered pair of distinct elements. */
+  public static AdjacencyBuild everyOrderedPair() {
+    return EVERY_ORDERED_PAIR;
+  }
+
+  /** This build, only evaluating each unordered pair once. */
+  public AdjacencyBuild undirected() {
+    return new AdjacencyBuild(true, executor, threads);
+  }
+
+  /**
+   * This build, with the evaluations spread across the given executor: as many of its threads as a
+   * {@link ForkJoinPool}'s parallelism, or for any other executor, as there are processors.
+   */
+  public AdjacencyBuild parallel(Executor executor) {
+    return parallel(executor, executor instanceof ForkJoinPool
+        ? ((ForkJoinPool) executor).getParallelism()
+        : Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * This build, with the evaluations spread across {@code threads} tasks on the given executor,
+   * which the calling thread works alongside.
+   */
+  public AdjacencyBuild parallel(Executor executor, int threads) {
+    if (threads < 1) {
+      throw new IllegalArgumentException(
+          String.format("A parallel build needs at least 1 thread, not %s.", threads));
+    }
+    return new AdjacencyBuild(undirected, Objects.requireNonNull(executor), threads);
+  }
+
+  boolean isUndirected() {
+    return undirected;
+  }
+
+  /**
+   * Returns the neighbor bitstrings of the elements as one flat array, {@code words} longs per
+   * element, with element i's neighbors starting at index {@code i * words}. Stops filling in rows
+   * once {@code stopped}, leaving the rest empty. Each row's calls are added to {@code stats} once
+   * the row is filled in.
+   */
+  <T> long[] neighbors(List<T> elements, BiPredicate<T, T> adjacencyFn, int words,
+      BooleanSupplier stopped, SearchStatistics stats) {
+    int n = elements.size();
+    long[] neighbors = new long[n * words];
+    if (executor == null) {
+      for (int i = 0; i < n && !stopped.getAsBoolean(); i++) {
+        stats.addPredicateCalls(fillRow(elements, adjacencyFn, words, neighbors, i));
+      }
+    } else {
+      fillRowsInParallel(elements, adjacencyFn, words, neighbors, stopped, stats);
+    }
+    if (undirected) {
+      // Rows only hold their neighbors above the diagonal, so copy each one below it.
+      for (int i = 0; i < n; i++) {
+        for (int w = i >>> 6; w < words; w++) {
+          for (long bs = neighbors[i * words + w]; bs != 0; bs &= bs - 1) {
+            int j = (w << 6) + Long.numberOfTrailingZeros(bs);
+            neighbors[j * words + (i >>> 6)] |= 1L << i;
+          }
+        }
+      }
+    }
+    return neighbors;
+  }
+
+  private <T> void fillRowsInParallel(List<T> elements, BiPredicate<T, T> adjacencyFn, int words,
+      long[] neighbors, BooleanSupplier stopped, SearchStatistics stats) {
+    int n = elements.size();
+    // Rows take different amounts of time (especially when undirected), so rather than splitting
+    // them up front, every worker claims the next unclaimed row until there are none left.
+    AtomicInteger nextRow = new AtomicInteger();
+    // Set once any worker fails, so the rest stop calling the function into rows nobody will read.
+    AtomicBoolean failed = new AtomicBoolean();
+    Runnable worker = () -> {
+      try {
+        for (int i = nextRow.getAndIncrement();
+            i < n && !failed.get() && !stopped.getAsBoolean(); i = nextRow.getAndIncrement()) {
+          stats.addPredicateCalls(fillRow(elements, adjacencyFn, words, neighbors, i));
+        }
+      } catch (RuntimeException | Error e) {
+        failed.set(true);
+        throw e;
+      }
+    };
+    // The calling thread is a worker too, so there's no use for more helpers than rows after its.
+    int helpers = Math.max(Math.min(threads, n - 1), 0);
+    CompletableFuture<?>[] futures = new CompletableFuture<?>[helpers];
+    for (int h = 0; h < futures.length; h++) {
+      futures[h] = CompletableFuture.runAsync(worker, executor);
+    }
+    Throwable failure = null;
+    try {
+      worker.run();
+    } catch (RuntimeException | Error e) {
+      failure = e;
+    }
+    // Even if this thread failed, wait for the helpers, so none outlives the build.
+    try {
+      CompletableFuture.allOf(futures).join();
+    } catch (CompletionException e) {
+      if (failure == null) {
+        failure = e.getCause() == null ? e : e.getCause();
+      }
+    }
+    if (failure instanceof RuntimeException) {
+      throw (RuntimeException) failure;
+    }
+    if (failure instanceof Error) {
+      throw (Error) failure;
+    }
+    if (failure != null) {
+      throw new CompletionException(failure);
+    }
+  }
+
+  /** Fills in row i, and returns how many times it called the adjacency function. */
+  private <T> int fillRow(List<T> elements, BiPredicate<T, T> adjacencyFn, int words,
+      long[] neighbors, int i) {
+    T a = elements.get(i);
+    int calls = 0;
+    for (int j = undirected ? i + 1 : 0; j < elements.size(); j++) {
+      if (i != j) {
+        calls++;
+        if (adjacencyFn.test(a, elements.get(j))) {
+          neighbors[i * words + (j >>> 6)] |= 1L << j;
+        }
+      }
+    }
+    return calls;
+  }
+}
@@ -0,0 +1,86 @@
+package com.gradybward.hamiltonian;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/** Tests how a parallel {@link AdjacencyBuild} spreads its calls, and how it fails. */
+public class AdjacencyBuildTest {
+
+  @Test
+  public void runsAsManyTasksAsAskedFor() {
+    ExecutorService pool = Executors.newFixedThreadPool(8);
+    try {
+      AtomicInteger tasks = new AtomicInteger();
+      Executor counting = task -> {
+        tasks.incrementAndGet();
+        pool.execute(task);
+      };
+      AdjacencyBuild build = AdjacencyBuild.everyOrderedPair().parallel(counting, 5);
+      assertTrue(HamiltonianCycleSolver.DFS()
+          .findHamiltonianCycle(elements(20), (a, b) -> true, build).isPresent());
+      assertTrue(String.valueOf(tasks), tasks.get() == 5);
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  @Test
+  public void stopsEveryThreadOnceOneFails() throws InterruptedException {
+    ExecutorService pool = Executors.newFixedThreadPool(4);
+    try {
+      Thread caller = Thread.currentThread();
+      AtomicInteger calls = new AtomicInteger();
+      AdjacencyBuild build = AdjacencyBuild.everyOrderedPair().parallel(pool, 4);
+      RuntimeException failure = new IllegalStateException("Failed on the calling thread.");
+      try {
+        HamiltonianCycleSolver.DFS().findHamiltonianCycle(elements(40), (a, b) -> {
+          if (Thread.currentThread() == caller) {
+            throw failure;
+          }
+          calls.incrementAndGet();
+          sleep(1);
+          return true;
+        }, build);
+        assertTrue("The build should have failed.", false);
+      } catch (IllegalStateException e) {
+        assertTrue(String.valueOf(e), e == failure);
+      }
+      // By the time the build fails, the helpers have stopped calling the function.
+      int callsWhenFailed = calls.get();
+      Thread.sleep(50);
+      assertTrue(calls + " " + callsWhenFailed, calls.get() == callsWhenFailed);
+      assertTrue(String.valueOf(calls), callsWhenFailed < 40 * 39);
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void needsAThread() {
+    AdjacencyBuild.everyOrderedPair().parallel(Runnable::run, 0);
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static List<Integer> elements(int n) {
+    List<Integer> result = new ArrayList<>();
+    for (int i = 0; i < n; i++) {
+      result.add(i);
+    }
+    return result;
+  }
+}
@@ -0,0 +1,115 @@
+package com.gradybward.hamiltonian;
+
+import java.util.List;
+import java.util.function.BiPredicate;
+import java.util.function.BooleanSupplier;
+
+/**
+ * A graph on at most 64 vertices, stored as one neighbor bitstring per vertex.
+ *
+ * <p>
+ * Vertex i's neighbors are the set bits of {@code neighbors(i)}, so membership tests are a single
+ * AND, and the neighbors of a vertex that are not yet in some set S are {@code neighbors(i) & ~S}.
+ * Iterate over a bitstring by repeatedly taking {@link Long#numberOfTrailingZeros} and clearing
+ * the lowest bit ({@code bs &= bs - 1}).
+ */
+final class BitGraph {
+
+  static final int MAX_VERTICES = 64;
+
+  private final long[] neighbors;
+
+  BitGraph(long[] neighbors) {
+    checkSize(neighbors.length);
+    this.neighbors = neighbors;
+  }
+
+  /**
+   * Evaluates the adjacency function as {@code build} says to. Vertex i of the result is
+   * {@code elements.get(i)}; self-loops are never recorded. If {@code stopped}, the result is
+   * incomplete. The calls made are added to {@code stats}.
+   */
+  static <T> BitGraph of(List<T> elements, BiPredicate<T, T> adjacencyFn, AdjacencyBuild build,
+      BooleanSupplier stopped, SearchStatistics stats) {
+    checkSize(elements.size());
+    return new BitGraph(build.neighbors(elements, adjacencyFn, 1, stopped, stats));
+  }
+
+  /**
+   * Whether a graph of {@code n} vertices, of any size, is too small to have a Hamiltonian cycle:
+   * without repeating an edge, a cycle needs at least 3 vertices.
+   */
+  static boolean isTooSmallForACycle(int n) {
+    return n < 3;
+  }
+
+  private static void checkSize(int n) {
+    if (n > MAX_VERTICES) {
+      throw new IllegalArgumentException(
+          String.format("A BitGraph uses a long bitstring to record neighbors. "
+              + "Sizes greater than %s are not supported.", MAX_VERTICES));
+    }
+  }
+
+  int size() {
+    return neighbors.length;
+  }
+
+  /** A bitstring with one bit set for every vertex in the graph. */
+  long vertices() {
+    return neighbors.length == 64 ? -1L : (1L << neighbors.length) - 1;
+  }
+
+  long neighbors(int vertex) {
+    return neighbors[vertex];
+  }
+
+  boolean isAdjacent(int from, int to) {
+    return (neighbors[from] & (1L << to)) != 0;
+  }
+
+  /** This graph, plus an edge between {@code a} and {@code b} (if there isn't one already). */
+  BitGraph withEdge(int a, int b) {
+    long[] result = neighbors.clone();
+    result[a] |= 1L << b;
+    result[b] |= 1L << a;
+    return new BitGraph(result);
+  }
+
+  /** This graph with every edge reversed, so vertex i's neighbors are the ones leading to i. */
+  BitGraph reversed() {
+    long[] result = new long[neighbors.length];
+    for (int i = 0; i < neighbors.length; i++) {
+      for (long bs = neighbors[i]; bs != 0; bs &= bs - 1) {
+        result[Long.numberOfTrailingZeros(bs)] |= 1L << i;
+      }
+    }
+    return new BitGraph(result);
+  }
+
+  int degree(int vertex) {
+    return Long.bitCount(neighbors[vertex]);
+  }
+
+  int minimumDegree() {
+    int result = Integer.MAX_VALUE;
+    for (long bs : neighbors) {
+      result = Math.min(result, Long.bitCount(bs));
+    }
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder result = new StringBuilder();
+    for (int i = 0; i < neighbors.length; i++) {
+      result.append(i).append(" -> ").append(bitString(neighbors[i])).append("\n");
+    }
+    return result.toString();
+  }
+
+  String bitString(long bs) {
+    return String.format("%" + Math.max(1, neighbors.length) + "s", Long.toBinaryString(bs))
+        .replace(' ', '0');
+  }
+}
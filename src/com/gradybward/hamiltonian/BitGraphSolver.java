@@ -0,0 +1,214 @@
+package com.gradybward.hamiltonian;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BiPredicate;
+import java.util.function.BooleanSupplier;
+
+/**
+ * The parts of solving that are shared by every solver that works on a {@link BitGraph}.
+ *
+ * <p>
+ * Builds the graph from whichever form the caller has it in, rejects graphs that obviously have no
+ * cycle, runs {@link ForcedEdgeReduction} to strip out edges that can't be in one, and only then
+ * hands the (reduced) graph to the backing algorithm. If the caller gave elements, the cycle it
+ * returns is translated back into them.
+ *
+ * <p>
+ * Solvers that are {@link #isDirected() directed} take each neighbor of a vertex to be the end of
+ * an arc out of it, and run the {@link ForcedArcReduction} instead.
+ *
+ * <p>
+ * Paths are found the same way, as cycles through an extra vertex (see
+ * {@link PathToCycleReduction}), unless the solver overrides {@link #solvePath} with a path search
+ * of its own.
+ */
+abstract class BitGraphSolver implements HamiltonianCycleSolver, SizeLimits {
+
+  @Override
+  public int maxElements() {
+    return BitGraph.MAX_VERTICES;
+  }
+
+  /** One fewer than {@link #maxElements()}, unless {@link #solvePath} is overridden. */
+  @Override
+  public int maxPathElements() {
+    return maxElements() - 1;
+  }
+
+  @Override
+  public final <T> HamiltonianCycleResult<T> solve(List<T> elements,
+      BiPredicate<T, T> adjacencyFn, AdjacencyBuild build, CancellationToken token) {
+    BooleanSupplier stopped = token::isCancelled;
+    SearchStatistics stats = new SearchStatistics();
+    long start = System.nanoTime();
+    BitGraph graph = BitGraph.of(elements, adjacencyFn, build, stopped, stats);
+    stats.addBuildNanos(System.nanoTime() - start);
+    Optional<int[]> idxes =
+        stopped.getAsBoolean() ? Optional.empty() : findHamiltonianCycle(graph, stopped, stats);
+    return HamiltonianCycleResult.of(elements, idxes, token, stats);
+  }
+
+  @Override
+  public final Optional<int[]> findHamiltonianCycle(int[][] adjacencyLists) {
+    return findHamiltonianCycle(LargeBitGraph.of(adjacencyLists).toBitGraph());
+  }
+
+  @Override
+  public final Optional<int[]> findHamiltonianCycle(long[] neighbors) {
+    return findHamiltonianCycle(LargeBitGraph.of(neighbors).toBitGraph());
+  }
+
+  @Override
+  public final Optional<int[]> findHamiltonianCycle(BitSet[] neighbors) {
+    return findHamiltonianCycle(LargeBitGraph.of(neighbors).toBitGraph());
+  }
+
+  @Override
+  public final <T> HamiltonianCycleResult<T> solvePath(List<T> elements,
+      BiPredicate<T, T> adjacencyFn, AdjacencyBuild build, CancellationToken token) {
+    return solvePath(elements, adjacencyFn, -1, -1, build, token);
+  }
+
+  @Override
+  public final <T> HamiltonianCycleResult<T> solvePath(List<T> elements,
+      BiPredicate<T, T> adjacencyFn, T start, T end, AdjacencyBuild build,
+      CancellationToken token) {
+    int[] ends = PathToCycleReduction.endIndexes(elements, start, end);
+    return solvePath(elements, adjacencyFn, ends[0], ends[1], build, token);
+  }
+
+  @Override
+  public final Optional<int[]> findHamiltonianPath(int[][] adjacencyLists) {
+    return findHamiltonianPath(LargeBitGraph.of(adjacencyLists).toBitGraph(), -1, -1, () -> false,
+        SearchStatistics.discarded());
+  }
+
+  @Override
+  public final Optional<int[]> findHamiltonianPath(int[][] adjacencyLists, int start, int end) {
+    PathToCycleReduction.checkEnds(adjacencyLists.length, start, end);
+    return findHamiltonianPath(LargeBitGraph.of(adjacencyLists).toBitGraph(), start, end,
+        () -> false, SearchStatistics.discarded());
+  }
+
+  private <T> HamiltonianCycleResult<T> solvePath(List<T> elements,
+      BiPredicate<T, T> adjacencyFn, int start, int end, AdjacencyBuild build,
+      CancellationToken token) {
+    BooleanSupplier stopped = token::isCancelled;
+    SearchStatistics stats = new SearchStatistics();
+    long startedAt = System.nanoTime();
+    BitGraph graph = BitGraph.of(elements, adjacencyFn, build, stopped, stats);
+    stats.addBuildNanos(System.nanoTime() - startedAt);
+    Optional<int[]> idxes = stopped.getAsBoolean() ? Optional.empty()
+        : findHamiltonianPath(graph, start, end, stopped, stats);
+    return HamiltonianCycleResult.of(elements, idxes, token, stats);
+  }
+
+  /**
+   * Returns the indexes of the graph's vertices in path order, if there is a Hamiltonian path.
+   * If {@code start} isn't -1, only paths from {@code start} to {@code end} count.
+   */
+  final Optional<int[]> findHamiltonianPath(BitGraph graph, int start, int end,
+      BooleanSupplier stopped, SearchStatistics stats) {
+    int n = graph.size();
+    if (n <= 1) {
+      return n == 0 ? Optional.empty() : Optional.of(new int[] { 0 });
+    }
+    return solvePath(graph, start, end, stopped, stats);
+  }
+
+  /** Whether this solver finds cycles that follow arcs, only from a vertex to its neighbors. */
+  boolean isDirected() {
+    return false;
+  }
+
+  /**
+   * Finds a Hamiltonian path in a graph of at least 2 vertices, from {@code start} to {@code end}
+   * unless they're -1. Gives up and records its work as {@link #solve} does.
+   *
+   * <p>
+   * This looks for a cycle through an extra vertex (see {@link PathToCycleReduction}). Solvers with
+   * a path search of their own override it, and run that search through {@link #searchPath}.
+   */
+  Optional<int[]> solvePath(BitGraph graph, int start, int end, BooleanSupplier stopped,
+      SearchStatistics stats) {
+    return findHamiltonianCycle(
+        PathToCycleReduction.withExtraVertex(graph, start, end, isDirected()), stopped, stats)
+            .map(cycle -> PathToCycleReduction.pathOf(cycle, start));
+  }
+
+  /** A solver's own search for a Hamiltonian path, in a graph prepared by {@link #searchPath}. */
+  interface PathSearch {
+    Optional<int[]> search(BitGraph graph);
+  }
+
+  /**
+   * Runs a solver's own path search on {@code graph}, of at least 2 vertices, timing it in
+   * {@code stats}. The search is only given graphs of at least 3 vertices. If {@code start} isn't
+   * -1, the graph it's given has an edge between {@code start} and {@code end} (which the path
+   * must not use), and has been through the {@link ForcedEdgeReduction}.
+   */
+  final Optional<int[]> searchPath(BitGraph graph, int start, int end, SearchStatistics stats,
+      PathSearch search) {
+    if (graph.size() == 2) {
+      return graph.isAdjacent(0, 1)
+          ? Optional.of(start == 1 ? new int[] { 1, 0 } : new int[] { 0, 1 })
+          : Optional.empty();
+    }
+    long startedAt = System.nanoTime();
+    // A path from start to end is a cycle, less the edge from end back to start. So edges that
+    // can't be in any cycle through that edge can't be in the path either.
+    Optional<BitGraph> reduced =
+        start < 0 ? Optional.of(graph) : ForcedEdgeReduction.reduce(graph.withEdge(start, end));
+    long reducedAt = System.nanoTime();
+    stats.addReductionNanos(reducedAt - startedAt);
+    if (!reduced.isPresent()) {
+      return Optional.empty();
+    }
+    Optional<int[]> path = search.search(reduced.get());
+    stats.addSearchNanos(System.nanoTime() - reducedAt);
+    return path;
+  }
+
+  /** Returns the indexes of the graph's vertices in cycle order, if there is a cycle. */
+  final Optional<int[]> findHamiltonianCycle(BitGraph graph) {
+    return findHamiltonianCycle(graph, () -> false, SearchStatistics.discarded());
+  }
+
+  /**
+   * Like {@link #findHamiltonianCycle(BitGraph)}, but gives up once {@code stopped}, and records
+   * its work in {@code stats}.
+   */
+  final Optional<int[]> findHamiltonianCycle(BitGraph graph, BooleanSupplier stopped,
+      SearchStatistics stats) {
+    if (BitGraph.isTooSmallForACycle(graph.size())) {
+      return Optional.empty();
+    }
+    long start = System.nanoTime();
+    Optional<BitGraph> reduced =
+        isDirected() ? ForcedArcReduction.reduce(graph) : ForcedEdgeReduction.reduce(graph);
+    long reducedAt = System.nanoTime();
+    stats.addReductionNanos(reducedAt - start);
+    if (!reduced.isPresent()) {
+      return Optional.empty();
+    }
+    Optional<int[]> cycle = solve(reduced.get(), stopped, stats);
+    stats.addSearchNanos(System.nanoTime() - reducedAt);
+    return cycle;
+  }
+
+  /**
+   * Finds a Hamiltonian cycle in a graph of at least 3 vertices, each with at least 2 neighbors
+   * (or if {@link #isDirected()}, with at least one arc in and one out).
+   *
+   * <p>
+   * Gives up and returns empty soon after {@code stopped} starts returning true. It is checked
+   * often enough that this takes milliseconds, not seconds, but not on every step.
+   *
+   * <p>
+   * Adds the work it does to {@code stats}, which may be shared with other threads (including
+   * other engines running on the same graph).
+   */
+  abstract Optional<int[]> solve(BitGraph graph, BooleanSupplier stopped, SearchStatistics stats);
+}
@@ -0,0 +1,51 @@
+package com.gradybward.hamiltonian;
+
+import java.time.Duration;
+
+/**
+ * Tells a running solve to give up, either when {@link #cancel()} is called or when a deadline
+ * passes.
+ *
+ * <p>
+ * Solvers don't check the token on every step, but often enough (every thousand or so steps, or
+ * every row of adjacency function calls) that they give up within milliseconds of it being
+ * cancelled. A solve that gave up returns {@link HamiltonianCycleResult.Status#UNKNOWN}. Tokens
+ * are safe to share between threads, and once cancelled, stay cancelled.
+ */
+public final class CancellationToken {
+
+  private final boolean hasDeadline;
+  // In System.nanoTime() terms.
+  private final long deadline;
+  private volatile boolean cancelled;
+
+  private CancellationToken(boolean hasDeadline, long deadline) {
+    this.hasDeadline = hasDeadline;
+    this.deadline = deadline;
+  }
+
+  /** A token that is only cancelled by calling {@link #cancel()}. */
+  public static CancellationToken create() {
+    return new CancellationToken(false, 0);
+  }
+
+  /** A token that cancels itself once {@code timeout} has passed, if not cancelled before. */
+  public static CancellationToken withTimeout(Duration timeout) {
+    return new CancellationToken(true, System.nanoTime() + timeout.toNanos());
+  }
+
+  public void cancel() {
+    cancelled = true;
+  }
+
+  public boolean isCancelled() {
+    if (cancelled) {
+      return true;
+    }
+    if (hasDeadline && System.nanoTime() - deadline >= 0) {
+      cancelled = true;
+      return true;
+    }
+    return false;
+  }
+}
@@ -0,0 +1,136 @@
+package com.gradybward.hamiltonian;
+
+import java.util.Optional;
+
+/**
+ * The {@link ForcedEdgeReduction} for directed graphs: removes arcs that can't be part of any
+ * Hamiltonian cycle, by propagating arcs that must be.
+ *
+ * <p>
+ * Every element of a directed Hamiltonian cycle is left by exactly one arc, and entered by exactly
+ * one. So:
+ *
+ * <ul>
+ * <li>If an element has exactly one arc out (or in), that arc is forced into the cycle.
+ * <li>Once the arc from a to b is forced, no other arc can leave a or enter b, so they are deleted
+ * (which may leave their other ends with only one arc, and so on).
+ * <li>Forced arcs link up into forced paths. An arc from the last element of a forced path back
+ * to its first would close a cycle; unless that cycle would visit every element, the arc is
+ * deleted.
+ * </ul>
+ *
+ * <p>
+ * These rules are applied until nothing changes. Along the way we can discover that there is no
+ * cycle at all: an element is left with no arc out or no arc in, or the forced arcs close a cycle
+ * that misses some elements.
+ */
+final class ForcedArcReduction {
+
+  private final int n;
+  private final long[] out;
+  private final long[] in;
+  // The element a forced arc leads to from each element, or -1 if none does yet.
+  private final int[] forcedNext;
+  // For an element at either end of a forced path, the element at its other end (an element with
+  // no forced arcs is a path of its own). Meaningless for elements in the middle of a forced path.
+  private final int[] otherEnd;
+  // For an element at either end of a forced path, how many elements the path has.
+  private final int[] pathSize;
+  private final int[] queue;
+  private long queued;
+  private int queueSize;
+
+  private ForcedArcReduction(BitGraph graph) {
+    n = graph.size();
+    out = new long[n];
+    in = new long[n];
+    forcedNext = new int[n];
+    otherEnd = new int[n];
+    pathSize = new int[n];
+    queue = new int[n];
+    BitGraph reversed = graph.reversed();
+    for (int i = 0; i < n; i++) {
+      out[i] = graph.neighbors(i);
+      in[i] = reversed.neighbors(i);
+      forcedNext[i] = -1;
+      otherEnd[i] = i;
+      pathSize[i] = 1;
+      enqueue(i);
+    }
+  }
+
+  /**
+   * Returns an equivalent graph (one with exactly the same Hamiltonian cycles) with every arc the
+   * rules above rule out removed, or empty if the rules prove that there is no Hamiltonian cycle.
+   */
+  static Optional<BitGraph> reduce(BitGraph graph) {
+    ForcedArcReduction reduction = new ForcedArcReduction(graph);
+    if (!reduction.propagate()) {
+      return Optional.empty();
+    }
+    return Optional.of(new BitGraph(reduction.out));
+  }
+
+  /** Applies the rules until nothing changes. Returns false on a contradiction. */
+  private boolean propagate() {
+    while (queueSize > 0) {
+      int v = queue[--queueSize];
+      queued &= ~(1L << v);
+      if (out[v] == 0 || in[v] == 0) {
+        return false;
+      }
+      if (Long.bitCount(out[v]) == 1 && forcedNext[v] < 0
+          && !force(v, Long.numberOfTrailingZeros(out[v]))) {
+        return false;
+      }
+      // Forcing can only remove arcs into v, so if it's still entered by one arc, re-read it.
+      if (Long.bitCount(in[v]) == 1) {
+        int from = Long.numberOfTrailingZeros(in[v]);
+        if (forcedNext[from] < 0 && !force(from, v)) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private boolean force(int a, int b) {
+    forcedNext[a] = b;
+    for (long bs = out[a] & ~(1L << b); bs != 0; bs &= bs - 1) {
+      delete(a, Long.numberOfTrailingZeros(bs));
+    }
+    for (long bs = in[b] & ~(1L << a); bs != 0; bs &= bs - 1) {
+      delete(Long.numberOfTrailingZeros(bs), b);
+    }
+    // a is the last element of one forced path, and b the first of another.
+    int first = otherEnd[a];
+    int last = otherEnd[b];
+    if (last == a) {
+      // This arc closes the forced path into a cycle, which had better be the whole thing.
+      return pathSize[a] == n;
+    }
+    int size = pathSize[a] + pathSize[b];
+    otherEnd[first] = last;
+    otherEnd[last] = first;
+    pathSize[first] = size;
+    pathSize[last] = size;
+    if (size < n && (out[last] & (1L << first)) != 0) {
+      delete(last, first);
+    }
+    return true;
+  }
+
+  private void delete(int from, int to) {
+    out[from] &= ~(1L << to);
+    in[to] &= ~(1L << from);
+    enqueue(from);
+    enqueue(to);
+  }
+
+  private void enqueue(int v) {
+    if ((queued & (1L << v)) == 0) {
+      queued |= 1L << v;
+      queue[queueSize++] = v;
+    }
+  }
+}
@@ -0,0 +1,79 @@
+package com.gradybward.hamiltonian;
+
+import java.util.Optional;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Builds the graph once, then hands it to whichever backing algorithm the {@link SolverCostModel}
+ * expects to be fastest.
+ *
+ * <p>
+ * The degrees the model needs come for free once the graph is built, so choosing costs no extra
+ * calls to the adjacency function. Graphs are first run through {@link LargeForcedEdgeReduction},
+ * so the choice is made on the graph the engine will actually search. Graphs of more than 64
+ * elements can only go to the large variants: the LargeBFS when the model picks a BFS and the graph
+ * fits, and the LargeDFS otherwise.
+ *
+ * <p>
+ * Paths go to the same engine, picked for the graph without the path's extra vertex (see
+ * {@link PathToCycleReduction}), so the BFS and DFS can search for them directly. The exception
+ * is a path with free ends in a large graph, which always goes to the LargeDFS: its extra vertex
+ * is joined to every other, which would multiply the paths the LargeBFS stores.
+ */
+final class HamiltonianCycleAuto extends LargeBitGraphSolver {
+
+  private final SolverCostModel model;
+
+  HamiltonianCycleAuto(SolverCostModel model) {
+    this.model = model;
+  }
+
+  @Override
+  Optional<int[]> solve(LargeBitGraph graph, BooleanSupplier stopped, SearchStatistics stats) {
+    HamiltonianCycleSolver engine = engineFor(graph);
+    if (engine instanceof BitGraphSolver) {
+      return ((BitGraphSolver) engine).solve(graph.toBitGraph(), stopped, stats);
+    }
+    return ((LargeBitGraphSolver) engine).solve(graph, stopped, stats);
+  }
+
+  @Override
+  Optional<int[]> solvePath(LargeBitGraph graph, int start, int end, BooleanSupplier stopped,
+      SearchStatistics stats) {
+    HamiltonianCycleSolver engine = engineFor(graph);
+    if (graph.size() > ((SizeLimits) engine).maxPathElements()) {
+      engine = new HamiltonianCycleDFS(); // There's no room in the DP for the extra vertex.
+    }
+    if (engine instanceof BitGraphSolver) {
+      return ((BitGraphSolver) engine).findHamiltonianPath(graph.toBitGraph(), start, end, stopped,
+          stats);
+    }
+    if (start < 0) {
+      // The extra vertex is joined to every other, so every stored path could jump through it.
+      engine = new HamiltonianCycleLargeDFS();
+    }
+    return ((LargeBitGraphSolver) engine).solvePath(graph, start, end, stopped, stats);
+  }
+
+  /** The engine the model picks for {@code graph}. */
+  HamiltonianCycleSolver engineFor(LargeBitGraph graph) {
+    int n = graph.size();
+    int[] degrees = new int[n];
+    for (int v = 0; v < n; v++) {
+      degrees[v] = graph.degree(v);
+    }
+    SolverCostModel.Engine engine = model.choose(degrees);
+    if (n > BitGraph.MAX_VERTICES) {
+      return n <= HamiltonianCycleLargeBFS.MAX_ELEMENTS && engine == SolverCostModel.Engine.BFS
+          ? new HamiltonianCycleLargeBFS() : new HamiltonianCycleLargeDFS();
+    }
+    switch (engine) {
+      case BFS:
+        return new HamiltonianCycleBFS();
+      case DP:
+        return new HamiltonianCycleDP();
+      default:
+        return new HamiltonianCycleDFS();
+    }
+  }
+}
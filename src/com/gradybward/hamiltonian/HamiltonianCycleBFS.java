@@ -1,17 +1,14 @@
 package com.gradybward.hamiltonian;
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Map;
 import java.util.Optional;
-import java.util.function.BiPredicate;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BooleanSupplier;
 
 /**
- * Uses double-DFS to find Hamiltonian cycles in small (V <= 63) undirected graphs.
+ * Uses double-DFS to find Hamiltonian cycles in small (V <= 64) undirected graphs.
  * 
  * <p>
  * This solver uses a simple approach. Imagine a path as a "word", built up of sequential characters
@@ -31,39 +28,79 @@ import java.util.function.BiPredicate;
  * <p>
  * This is an exponentially space intensive algorithm. In the worst case of a fully connected graph,
  * this could take O((N/2)!) bytes of memory! Yikes! To save (constant factors of) space, we use
- * bit-strings to represent sets (limiting this solver to sets with <= 63 elements), and we use
- * bytes to record directions (since there are always 63 or fewer elements), and only record one
- * path of the two paths that we could record in any situation.
+ * bit-strings to represent sets (limiting this solver to sets with <= 64 elements), and we use
+ * bytes to record directions (since there are always 64 or fewer elements), and only record one
+ * path of the two paths that we could record in any situation. Each word length is kept in a
+ * {@link PathStore}, which packs the paths into a single byte arena rather than allocating an
+ * object (or three) per word.
  * 
  * <p>
  * This algorithm is at its best in situations where we have a relatively sparse graph (E < 4V).
+ *
+ * <p>
+ * Given a {@link ForkJoinPool}, each level is built in parallel: the previous level's paths are
+ * split into ranges, each range is extended into its own {@link PathStore}, and the stores are
+ * merged back together in range order. Since a store keeps the first path it sees for each key,
+ * the merged level is identical to the one the sequential solver would build. The price is that
+ * a path reachable from two ranges is briefly held twice, so peak memory is somewhat higher.
+ *
+ * <p>
+ * A directed BFS has to tell a path's start from its end, so its words are keyed on the ordered
+ * pair (start, end) instead, and only ever grow at the end, along an arc out of it. The halves are
+ * then a path of length L1 from some start to some end, and a path of length L2 from that end back
+ * to that start, so there's still exactly one key to look up for each first half.
  */
-class HamiltonianCycleBFS implements HamiltonianCycleSolver {
+class HamiltonianCycleBFS extends BitGraphSolver {
+
+  // Ranges with fewer paths than this are extended on the current thread.
+  private static final int MINIMUM_PATHS_PER_TASK = 256;
+
+  private final ForkJoinPool pool;
+  private final boolean directed;
+
+  HamiltonianCycleBFS() {
+    this(null);
+  }
+
+  HamiltonianCycleBFS(ForkJoinPool pool) {
+    this(pool, false);
+  }
+
+  HamiltonianCycleBFS(ForkJoinPool pool, boolean directed) {
+    this.pool = pool;
+    this.directed = directed;
+  }
 
   @Override
-  public <T> Optional<List<T>> findHamiltonianCycle(List<T> elements,
-      BiPredicate<T, T> adjacencyFn) {
-    Map<Byte, Collection<Byte>> adjacent = new HashMap<>();
-    for (byte i = 0; i < elements.size(); i++) {
-      if (i >= 64) {
-        throw new RuntimeException("This solver uses a long bitstring to record element sets. "
-            + "Sizes Greater than 63 will cause undefined behavior.");
-      }
-      adjacent.put(i, new HashSet<>());
-      for (byte j = 0; j < elements.size(); j++) {
-        if (adjacencyFn.test(elements.get(i), elements.get(j))) {
-          adjacent.get(i).add(j);
-        }
-      }
-      if (adjacent.get(i).size() < 2) {
-        return Optional.empty(); // A cycle requires every vertex to have 2+ edges.
-      }
+  Optional<int[]> solve(BitGraph graph, BooleanSupplier stopped, SearchStatistics stats) {
+    return toInts(new Solver(graph, pool, stopped, stats, directed, false, -1, -1).calculate());
+  }
+
+  @Override
+  boolean isDirected() {
+    return directed;
+  }
+
+  @Override
+  public int maxPathElements() {
+    return directed ? super.maxPathElements() : maxElements();
+  }
+
+  @Override
+  Optional<int[]> solvePath(BitGraph graph, int start, int end, BooleanSupplier stopped,
+      SearchStatistics stats) {
+    if (directed) {
+      return super.solvePath(graph, start, end, stopped, stats);
     }
-    Optional<byte[]> idxes = new Solver(adjacent).calculate();
+    return searchPath(graph, start, end, stats, reduced -> toInts(
+        new Solver(reduced, pool, stopped, stats, false, true, start, end).calculate()));
+  }
+
+  private static Optional<int[]> toInts(Optional<byte[]> idxes) {
     if (idxes.isPresent()) {
-      List<T> result = new ArrayList<>();
-      for (byte i : idxes.get()) {
-        result.add(elements.get(i));
+      int[] result = new int[idxes.get().length];
+      for (int i = 0; i < result.length; i++) {
+        result[i] = idxes.get()[i];
       }
       return Optional.of(result);
     }
@@ -71,127 +108,265 @@ class HamiltonianCycleBFS implements HamiltonianCycleSolver {
   }
 
   private static class Solver {
-    private final Map<Byte, Collection<Byte>> adjacent;
-    private final HashMap<Integer, Map<Long, Map<Long, byte[]>>> lengthToStartAndEndToElementsToPaths;
+    // How many paths to extend or look up between checks of whether we've been told to stop.
+    private static final int PATHS_BETWEEN_STOP_CHECKS = 1024;
+
+    private final BitGraph graph;
+    private final ForkJoinPool pool;
+    private final BooleanSupplier stopped;
+    private final SearchStatistics stats;
+    private final HashMap<Integer, PathStore> lengthToPaths;
     private final long completeBS;
     private final int n;
+    // Whether paths follow arcs, in which case their ends are keyed in order; see ends(...).
+    private final boolean directed;
+    // Whether to look for a Hamiltonian path rather than a cycle, and its ends, if they're fixed.
+    private final boolean path;
+    private final int start;
+    private final int end;
+    // The fixed ends, which are never extended from, so they can only ever be ends of a path.
+    private final long fixedEnds;
+    // The two halves joined into a complete cycle. Every N + 2 length cycle (counting the shared
+    // start and end twice) is a path of length L1 and a path of length L2 with the same ends.
+    // Likewise every N length path is a path of length L1 and a path of length L2 that share one
+    // end, where L1 + L2 = N + 1.
+    private final int l1;
+    private final int l2;
     private int longestPathsAreOfLength;
 
-    private Solver(Map<Byte, Collection<Byte>> adjacent) {
-      this.adjacent = adjacent;
-      lengthToStartAndEndToElementsToPaths = new HashMap<>();
-      Map<Long, Map<Long, byte[]>> startAndEndToElementsToPaths = new HashMap<>();
-      for (byte a : adjacent.keySet()) {
-        for (byte b : adjacent.get(a)) {
-          if (a < b && a != b) {
-            long startAndEnd = set(set(0, a), b);
-            startAndEndToElementsToPaths.putIfAbsent(startAndEnd, new HashMap<>());
-            startAndEndToElementsToPaths.get(startAndEnd).put(startAndEnd, new byte[] { a, b });
-          }
+    private Solver(BitGraph graph, ForkJoinPool pool, BooleanSupplier stopped,
+        SearchStatistics stats, boolean directed, boolean path, int start, int end) {
+      this.graph = graph;
+      this.pool = pool;
+      this.stopped = stopped;
+      this.stats = stats;
+      this.directed = directed;
+      this.path = path;
+      this.start = start;
+      this.end = end;
+      fixedEnds = start < 0 ? 0 : set(set(0, start), end);
+      lengthToPaths = new HashMap<>();
+      PathStore paths = new PathStore(2);
+      n = graph.size();
+      for (byte a = 0; a < n; a++) {
+        // Only record each edge once, from its lower end (but every arc of a directed graph).
+        for (long bs = graph.neighbors(a) & (directed ? -1L : -2L << a); bs != 0; bs &= bs - 1) {
+          byte b = (byte) Long.numberOfTrailingZeros(bs);
+          paths.add(ends(a, b), set(set(0, a), b), new byte[] { a, b });
         }
       }
-      lengthToStartAndEndToElementsToPaths.put(2, startAndEndToElementsToPaths);
-      n = adjacent.size();
-      long bs = 0;
-      for (int i = 0; i < n; i++) {
-        bs = set(bs, i);
-      }
-      completeBS = bs;
+      lengthToPaths.put(2, paths);
+      stats.pathsStored(2, paths.size());
+      stats.pathStoreBytes(paths.bytes());
+      completeBS = graph.vertices();
+      int joinedLength = path ? n + 1 : n + 2;
+      l1 = joinedLength / 2;
+      l2 = joinedLength - l1;
       longestPathsAreOfLength = 2;
     }
 
     public Optional<byte[]> calculate() {
-      int requirePathsOfLength = (int) Math.ceil((2.0 + n) / 2);
-      while (longestPathsAreOfLength <= requirePathsOfLength) {
+      while (longestPathsAreOfLength < l2) {
         addOneLinkToEveryPathOfLongestLength();
+        if (stopped.getAsBoolean()) {
+          return Optional.empty(); // The level may be incomplete, so don't look for a cycle in it.
+        }
+      }
+      if (directed) {
+        return getDirectedCycleFromTwoPartialPaths();
       }
-      return getCompletePathFromTwoPartialPaths();
+      return path ? getHamiltonianPathFromTwoPartialPaths() : getCompletePathFromTwoPartialPaths();
+    }
+
+    /**
+     * The key for a path's ends. Undirected paths can be read either way, so that's the set of
+     * both ends. Directed ones can't, so it's the ordered pair, packed as 6 bits each.
+     */
+    private long ends(int first, int last) {
+      return directed ? (long) first << 6 | last : set(set(0, first), last);
     }
 
     private void addOneLinkToEveryPathOfLongestLength() {
-      Map<Long, Map<Long, byte[]>> startAndEndToElementsToPaths = lengthToStartAndEndToElementsToPaths
-          .get(longestPathsAreOfLength);
-      Map<Long, Map<Long, byte[]>> newLengthMap = new HashMap<>();
-      for (Long startAndEnd : startAndEndToElementsToPaths.keySet()) {
-        Map<Long, byte[]> elementsToPath = startAndEndToElementsToPaths.get(startAndEnd);
-        for (byte startOrEndIndex = 0; startOrEndIndex < n; startOrEndIndex++) {
-          if (!isSet(startAndEnd, startOrEndIndex)) {
-            continue;
+      PathStore paths = lengthToPaths.get(longestPathsAreOfLength);
+      PathStore newPaths;
+      if (pool == null) {
+        newPaths = addOneLinkToEveryPath(paths, 0, paths.size());
+      } else {
+        int minimumPathsPerTask = Math.max(MINIMUM_PATHS_PER_TASK,
+            paths.size() / (4 * pool.getParallelism()));
+        newPaths = pool.invoke(new AddOneLinkTask(paths, 0, paths.size(), minimumPathsPerTask));
+      }
+      long liveBytes = newPaths.bytes();
+      for (PathStore live : lengthToPaths.values()) {
+        liveBytes += live.bytes();
+      }
+      stats.pathStoreBytes(liveBytes);
+      stats.pathsStored(newPaths.pathLength(), newPaths.size());
+      // Only the newest level and L1 are ever read again, so let the rest be collected.
+      if (longestPathsAreOfLength != l1) {
+        lengthToPaths.remove(longestPathsAreOfLength);
+      }
+      longestPathsAreOfLength++;
+      lengthToPaths.put(longestPathsAreOfLength, newPaths);
+    }
+
+    private PathStore addOneLinkToEveryPath(PathStore paths, int from, int to) {
+      PathStore newPaths = new PathStore(paths.pathLength() + 1);
+      byte[] newPath = new byte[paths.pathLength() + 1];
+      int path = from;
+      for (; path < to; path++) {
+        if ((path - from) % PATHS_BETWEEN_STOP_CHECKS == 0 && stopped.getAsBoolean()) {
+          break;
+        }
+        long startAndEnd = paths.startAndEnd(path);
+        long elements = paths.elements(path);
+        if (directed) {
+          // Every directed path's first L - 1 elements are a path too, so growing only at the end
+          // still reaches every key.
+          byte first = paths.first(path);
+          for (long bs = graph.neighbors(paths.last(path)) & ~elements; bs != 0; bs &= bs - 1) {
+            byte newElement = (byte) Long.numberOfTrailingZeros(bs);
+            paths.copy(path, newPath, 0);
+            newPath[paths.pathLength()] = newElement;
+            newPaths.add(ends(first, newElement), set(elements, newElement), newPath);
           }
-          for (Long elements : elementsToPath.keySet()) {
-            byte[] path = elementsToPath.get(elements);
-            for (byte adjacentToStartOrEnd : adjacent.get(startOrEndIndex)) {
-              if (isSet(elements, adjacentToStartOrEnd)) {
-                continue;
-              }
-              byte newElement = adjacentToStartOrEnd;
-              byte[] newPath = createNewPathAppendingNewElementToOneSide(path, startOrEndIndex,
-                  newElement);
-              long resultStartAndEnd = set(set(0, newPath[0]), newPath[newPath.length - 1]);
-              newLengthMap.putIfAbsent(resultStartAndEnd, new HashMap<>());
-              newLengthMap.get(resultStartAndEnd).put(set(elements, newElement), newPath);
-            }
+          continue;
+        }
+        // Extending from a fixed end would bury it inside the path, where it can't be an end.
+        for (long ends = startAndEnd & ~fixedEnds; ends != 0; ends &= ends - 1) {
+          byte startOrEndIndex = (byte) Long.numberOfTrailingZeros(ends);
+          for (long bs = graph.neighbors(startOrEndIndex) & ~elements; bs != 0; bs &= bs - 1) {
+            byte newElement = (byte) Long.numberOfTrailingZeros(bs);
+            writeNewPathAppendingNewElementToOneSide(paths, path, startOrEndIndex, newElement,
+                newPath);
+            long resultStartAndEnd = set(set(0, newPath[0]), newPath[newPath.length - 1]);
+            newPaths.add(resultStartAndEnd, set(elements, newElement), newPath);
           }
         }
       }
-      longestPathsAreOfLength++;
-      lengthToStartAndEndToElementsToPaths.put(longestPathsAreOfLength, newLengthMap);
+      stats.addNodesExpanded(path - from);
+      return newPaths;
     }
 
-    private byte[] createNewPathAppendingNewElementToOneSide(byte[] path, byte from, byte to) {
-      byte[] result = new byte[path.length + 1];
-      int offset;
-      if (path[0] == from) {
+    private final class AddOneLinkTask extends RecursiveTask<PathStore> {
+      private static final long serialVersionUID = 1L;
+      private final PathStore paths;
+      private final int from;
+      private final int to;
+      private final int minimumPathsPerTask;
+
+      private AddOneLinkTask(PathStore paths, int from, int to, int minimumPathsPerTask) {
+        this.paths = paths;
+        this.from = from;
+        this.to = to;
+        this.minimumPathsPerTask = minimumPathsPerTask;
+      }
+
+      @Override
+      protected PathStore compute() {
+        if (to - from <= minimumPathsPerTask) {
+          return addOneLinkToEveryPath(paths, from, to);
+        }
+        int middle = (from + to) >>> 1;
+        AddOneLinkTask right = new AddOneLinkTask(paths, middle, to, minimumPathsPerTask);
+        right.fork();
+        PathStore result = new AddOneLinkTask(paths, from, middle, minimumPathsPerTask).compute();
+        result.addAll(right.join());
+        return result;
+      }
+    }
+
+    private static void writeNewPathAppendingNewElementToOneSide(PathStore paths, int path,
+        byte from, byte to, byte[] result) {
+      if (paths.first(path) == from) {
         result[0] = to;
-        offset = 1;
-      } else if (path[path.length - 1] == from) {
-        result[path.length] = to;
-        offset = 0;
+        paths.copy(path, result, 1);
+      } else if (paths.last(path) == from) {
+        paths.copy(path, result, 0);
+        result[paths.pathLength()] = to;
       } else {
         throw new RuntimeException(
             String.format("Expected path %s to be terminated on one side by %s.",
-                pathToString(path), (int) from));
-      }
-      for (int i = 0; i < path.length; i++) {
-        result[offset + i] = path[i];
+                pathToString(paths, path), (int) from));
       }
-      return result;
     }
 
     private Optional<byte[]> getCompletePathFromTwoPartialPaths() {
-      int l1 = (n + 2) / 2;
-      int l2 = (n + 2) - l1;
-      for (Long startAndEnd : lengthToStartAndEndToElementsToPaths.get(l1).keySet()) {
-        Map<Long, byte[]> elementsToPath1 = lengthToStartAndEndToElementsToPaths.get(l1)
-            .get(startAndEnd);
-        Map<Long, byte[]> elementsToPath2 = lengthToStartAndEndToElementsToPaths.get(l2)
-            .get(startAndEnd);
-        // Though L2 lengths are computed, start-ends might not have any paths with length = L2.
-        if (elementsToPath2 == null) {
+      PathStore paths1 = lengthToPaths.get(l1);
+      PathStore paths2 = lengthToPaths.get(l2);
+      for (int pathA = 0; pathA < paths1.size(); pathA++) {
+        if (pathA % PATHS_BETWEEN_STOP_CHECKS == 0 && stopped.getAsBoolean()) {
+          return Optional.empty();
+        }
+        // The only elements a matching second half can have are the ones the first half is
+        // missing, plus the shared start and end, so there's exactly one key to look up.
+        long startAndEnd = paths1.startAndEnd(pathA);
+        long elements = (completeBS ^ paths1.elements(pathA)) | startAndEnd;
+        int pathB = paths2.find(startAndEnd, elements);
+        if (pathB >= 0) {
+          return Optional.of(join(paths1, pathA, paths2, pathB));
+        }
+      }
+      return Optional.empty();
+    }
+
+    /**
+     * Like {@link #getCompletePathFromTwoPartialPaths()}, but the second half has to run from the
+     * first half's end back to its start.
+     */
+    private Optional<byte[]> getDirectedCycleFromTwoPartialPaths() {
+      PathStore paths1 = lengthToPaths.get(l1);
+      PathStore paths2 = lengthToPaths.get(l2);
+      for (int pathA = 0; pathA < paths1.size(); pathA++) {
+        if (pathA % PATHS_BETWEEN_STOP_CHECKS == 0 && stopped.getAsBoolean()) {
+          return Optional.empty();
+        }
+        byte first = paths1.first(pathA);
+        byte last = paths1.last(pathA);
+        long elements = (completeBS ^ paths1.elements(pathA)) | set(set(0, first), last);
+        int pathB = paths2.find(ends(last, first), elements);
+        if (pathB >= 0) {
+          return Optional.of(join(paths1, pathA, paths2, pathB));
+        }
+      }
+      return Optional.empty();
+    }
+
+    /**
+     * Looks for a first half (of length L1) and a second half (of length L2) that share one end,
+     * and between them visit every element, starting and ending at the fixed ends if there are
+     * any. For each first half, the second's elements are known, so with fixed ends there's one key
+     * to look up, and otherwise one per element the second half could end on.
+     */
+    private Optional<byte[]> getHamiltonianPathFromTwoPartialPaths() {
+      PathStore paths1 = lengthToPaths.get(l1);
+      PathStore paths2 = lengthToPaths.get(l2);
+      for (int pathA = 0; pathA < paths1.size(); pathA++) {
+        if (pathA % PATHS_BETWEEN_STOP_CHECKS == 0 && stopped.getAsBoolean()) {
+          return Optional.empty();
+        }
+        long ends = paths1.startAndEnd(pathA);
+        long missing = completeBS ^ paths1.elements(pathA);
+        if (fixedEnds != 0) {
+          long fixedEndsOfA = ends & fixedEnds;
+          if (fixedEndsOfA == 0 || fixedEndsOfA == fixedEnds) {
+            continue; // The other half would have to hold both fixed ends, or neither.
+          }
+          long shared = ends ^ fixedEndsOfA;
+          long otherEnd = fixedEnds ^ fixedEndsOfA;
+          int pathB = paths2.find(shared | otherEnd, missing | shared);
+          if (pathB >= 0) {
+            byte[] result = joinAtSharedEnd(paths1, pathA, paths2, pathB, shared);
+            return Optional.of(result[0] == start ? result : reverse(result));
+          }
           continue;
         }
-        for (long elements1 : elementsToPath1.keySet()) {
-          for (long elements2 : elementsToPath2.keySet()) {
-            if (areCompleteWithStartAndEnd(elements1, elements2, startAndEnd)) {
-              byte[] pathA = elementsToPath1.get(elements1);
-              byte[] pathB = elementsToPath2.get(elements2);
-              byte[] result = new byte[n];
-              int i = 0;
-              for (; i < pathA.length; i++) {
-                result[i] = pathA[i];
-              }
-              // Don't include the first or last element from the second array, these are start +
-              // end.
-              if (result[i - 1] == pathB[0]) {
-                for (int j = 1; j < pathB.length - 1; j++) {
-                  result[i + j - 1] = pathB[j];
-                }
-              } else {
-                for (int j = pathB.length - 2; j > 0; j--) {
-                  result[i + pathB.length - 2 - j] = pathB[j];
-                }
-              }
-              return Optional.of(result);
+        for (long bs = ends; bs != 0; bs &= bs - 1) {
+          long shared = bs & -bs;
+          for (long others = missing; others != 0; others &= others - 1) {
+            int pathB = paths2.find(shared | (others & -others), missing | shared);
+            if (pathB >= 0) {
+              return Optional.of(joinAtSharedEnd(paths1, pathA, paths2, pathB, shared));
             }
           }
         }
@@ -199,57 +374,95 @@ class HamiltonianCycleBFS implements HamiltonianCycleSolver {
       return Optional.empty();
     }
 
-    private boolean areCompleteWithStartAndEnd(long pathA, long pathB, long se) {
-      return isComplete(pathA | pathB) && (pathA & pathB) == se;
+    /** Joins two paths into one, where {@code shared} is the bit of the end they have in common. */
+    private byte[] joinAtSharedEnd(PathStore paths1, int pathA, PathStore paths2, int pathB,
+        long shared) {
+      byte[] result = new byte[n];
+      int lengthA = paths1.pathLength();
+      paths1.copy(pathA, result, 0);
+      if (set(0, paths1.first(pathA)) == shared) {
+        result = reverse(result, lengthA);
+      }
+      int lengthB = paths2.pathLength();
+      boolean forwards = set(0, paths2.first(pathB)) == shared;
+      // Don't include the shared end twice.
+      for (int j = 1; j < lengthB; j++) {
+        result[lengthA + j - 1] = paths2.get(pathB, forwards ? j : lengthB - 1 - j);
+      }
+      return result;
     }
 
-    private static boolean isSet(long bs, byte location) {
-      return (bs & (1 << location)) != 0;
+    private static byte[] reverse(byte[] path) {
+      return reverse(path, path.length);
     }
 
-    private static long set(long bs, int location) {
-      return bs | (1L << location);
+    /** A copy of {@code path} with its first {@code length} elements reversed. */
+    private static byte[] reverse(byte[] path, int length) {
+      byte[] result = path.clone();
+      for (int i = 0; i < length; i++) {
+        result[i] = path[length - 1 - i];
+      }
+      return result;
     }
 
-    private boolean isComplete(long bs) {
-      return bs == completeBS;
+    private byte[] join(PathStore paths1, int pathA, PathStore paths2, int pathB) {
+      byte[] result = new byte[n];
+      paths1.copy(pathA, result, 0);
+      int i = paths1.pathLength();
+      int lengthB = paths2.pathLength();
+      // Don't include the first or last element from the second path, these are start + end.
+      if (result[i - 1] == paths2.first(pathB)) {
+        for (int j = 1; j < lengthB - 1; j++) {
+          result[i + j - 1] = paths2.get(pathB, j);
+        }
+      } else {
+        for (int j = lengthB - 2; j > 0; j--) {
+          result[i + lengthB - 2 - j] = paths2.get(pathB, j);
+        }
+      }
+      return result;
+    }
+
+    private static long set(long bs, int location) {
+      return bs | (1L << location);
     }
 
     @Override
     public String toString() {
       StringBuilder result = new StringBuilder();
-      result.append("ADJACENT \n" + adjacent.toString() + "\n");
+      result.append("ADJACENT \n" + graph.toString() + "\n");
       result.append(String.format("N = %s\n", n));
       result.append(String.format("COMPLETE = %s\n", Long.toBinaryString(completeBS)));
       for (int i = 2; i <= longestPathsAreOfLength; i++) {
         result.append(String.format("  Of Length %s\n", i));
-        Map<Long, Map<Long, byte[]>> startAndEndToElementsToPaths = lengthToStartAndEndToElementsToPaths
-            .get(i);
-        for (Long startAndEnd : startAndEndToElementsToPaths.keySet()) {
-          result.append("  ").append(bitString(startAndEnd)).append("\n");
-          for (Long elements : startAndEndToElementsToPaths.get(startAndEnd).keySet()) {
-            byte[] path = startAndEndToElementsToPaths.get(startAndEnd).get(elements);
-            result.append("    ");
-            result.append(bitString(elements));
-            result.append(" ");
-            result.append(pathToString(path));
-            result.append("\n");
-          }
+        PathStore paths = lengthToPaths.get(i);
+        if (paths == null) {
+          result.append("    (discarded)\n");
+          continue;
+        }
+        for (int path = 0; path < paths.size(); path++) {
+          result.append("    ");
+          result.append(bitString(paths.startAndEnd(path)));
+          result.append(" ");
+          result.append(bitString(paths.elements(path)));
+          result.append(" ");
+          result.append(pathToString(paths, path));
+          result.append("\n");
         }
       }
       return result.toString();
     }
 
-    private static String pathToString(byte[] directions) {
-      int[] result = new int[directions.length];
-      for (int i = 0; i < directions.length; i++) {
-        result[i] = directions[i];
+    private static String pathToString(PathStore paths, int path) {
+      int[] result = new int[paths.pathLength()];
+      for (int i = 0; i < result.length; i++) {
+        result[i] = paths.get(path, i);
       }
       return Arrays.toString(result);
     }
 
     private String bitString(long i) {
-      return String.format("%" + n + "s", Long.toBinaryString(i)).replace(' ', '0');
+      return graph.bitString(i);
     }
   }
 }
@@ -0,0 +1,95 @@
+package com.gradybward.hamiltonian;
+
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+/**
+ * Tests that every solver stops searching soon after it's told to, on a graph that would take it
+ * seconds to finish.
+ */
+@RunWith(Parameterized.class)
+public class HamiltonianCycleCancellationTest {
+
+  // The complete bipartite graph between 13 elements and 14 has no cycle (every other element of
+  // one would be from the smaller side), but nothing short of searching finds that out: every
+  // engine takes seconds to.
+  private static final int SMALLER_SIDE = 13;
+  private static final Duration TIMEOUT = Duration.ofMillis(50);
+  // Far less than any engine takes to finish, but time enough to notice the timeout and unwind.
+  private static final Duration GIVES_UP_WITHIN = Duration.ofSeconds(1);
+
+  private final HamiltonianCycleSolver solver;
+
+  public HamiltonianCycleCancellationTest(HamiltonianCycleSolver solver) {
+    this.solver = solver;
+  }
+
+  @Test
+  public void runTestWithTimeout() {
+    long start = System.nanoTime();
+    HamiltonianCycleResult<Integer> result = solver.solve(elements(), this::isAdjacent,
+        CancellationToken.withTimeout(TIMEOUT));
+    Duration took = Duration.ofNanos(System.nanoTime() - start);
+    String message = String.format("%s %s after %s", solver.getClass(), result, took);
+    assertTrue(message, result.status() == HamiltonianCycleResult.Status.UNKNOWN);
+    assertTrue(message, took.compareTo(GIVES_UP_WITHIN) < 0);
+  }
+
+  @Test
+  public void runTestCancellingTheFuture() throws Exception {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      CountDownLatch started = new CountDownLatch(1);
+      CompletableFuture<Optional<List<Integer>>> future =
+          solver.findHamiltonianCycleAsync(elements(), (a, b) -> {
+            started.countDown();
+            return isAdjacent(a, b);
+          }, executor);
+      // Cancel once the search is underway, rather than while it's still queued.
+      assertTrue(solver.getClass().toString(), started.await(10, TimeUnit.SECONDS));
+      assertTrue(solver.getClass().toString(), future.cancel(true));
+      // The executor's only thread is free again once the search has stopped.
+      long start = System.nanoTime();
+      executor.submit(() -> {}).get(10, TimeUnit.SECONDS);
+      Duration took = Duration.ofNanos(System.nanoTime() - start);
+      assertTrue(String.format("%s freed its thread after %s", solver.getClass(), took),
+          took.compareTo(GIVES_UP_WITHIN) < 0);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private boolean isAdjacent(int a, int b) {
+    return (a < SMALLER_SIDE) != (b < SMALLER_SIDE);
+  }
+
+  private static List<Integer> elements() {
+    List<Integer> result = new ArrayList<>();
+    for (int i = 0; i < 2 * SMALLER_SIDE + 1; i++) {
+      result.add(i);
+    }
+    return result;
+  }
+
+  @Parameterized.Parameters
+  public static List<Object[]> testCases() {
+    List<Object[]> result = new ArrayList<>();
+    for (HamiltonianCycleSolver solver : HamiltonianCycleTest.solvers()) {
+      result.add(new Object[] { solver });
+    }
+    return result;
+  }
+}
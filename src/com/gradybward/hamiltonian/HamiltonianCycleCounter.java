@@ -0,0 +1,236 @@
+package com.gradybward.hamiltonian;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Counts the Hamiltonian cycles of an undirected graph, without listing them, in O(N) space.
+ *
+ * <p>
+ * Uses inclusion-exclusion over the subsets of elements. A closed walk of N steps from element 0
+ * visits every element exactly when it is a Hamiltonian cycle, so the cycles (counted once in each
+ * direction) are the N-step closed walks from 0 that don't miss any element. By inclusion-exclusion
+ * over the set S of elements a walk misses, that's the sum, over every set X = V - S that includes
+ * 0, of (-1)^|S| times the N-step closed walks from 0 that stay within X. Those are counted by
+ * stepping a vector of walk counts N times, which is O(N * E) per subset and O(N) memory. So this
+ * takes O(2^(N-1) * N * E) time: on one core, a sparse graph of 24 elements takes seconds, one of
+ * 30 takes minutes, and every element more doubles that. The graph is run through
+ * {@link ForcedEdgeReduction} first, which deletes only edges that are in no cycle, so the count
+ * is unchanged but the walks are cheaper to count.
+ *
+ * <p>
+ * Walk counts are huge, so all the arithmetic is modular. The terms of the sum are computed modulo
+ * 2^64 (for free, by letting longs wrap), plus as many odd primes near 2^61 as it takes to pin down
+ * a count bounded by the product of the degrees, and the exact count is recovered by the Chinese
+ * remainder theorem. Counts modulo a caller's odd modulus skip all of that. Given a
+ * {@link ForkJoinPool}, the subsets are split into ranges that are summed in parallel.
+ */
+final class HamiltonianCycleCounter {
+
+  // 2^(N-1) subsets must fit in a long.
+  static final int MAX_ELEMENTS = 63;
+  // Odd moduli must be small enough that adding two residues can't overflow.
+  static final long MAX_MODULUS = 1L << 62;
+
+  // Ranges with fewer subsets than this are summed on the current thread.
+  private static final long MINIMUM_SUBSETS_PER_TASK = 1 << 12;
+  // Enough primes to recover any count for MAX_ELEMENTS elements (at most 63^63 < 2^377).
+  private static final long[] PRIMES = primesAbove(1L << 61, 6);
+
+  private final BitGraph graph;
+  private final int n;
+  // The moduli to count under; 0 stands for 2^64.
+  private final long[] moduli;
+
+  private HamiltonianCycleCounter(BitGraph graph, long[] moduli) {
+    this.graph = graph;
+    this.n = graph.size();
+    this.moduli = moduli;
+  }
+
+  /** The number of Hamiltonian cycles of {@code graph}, each counted once. */
+  static BigInteger count(BitGraph graph, ForkJoinPool pool) {
+    checkSize(graph.size());
+    Optional<BitGraph> reduced = reduce(graph);
+    if (!reduced.isPresent()) {
+      return BigInteger.ZERO;
+    }
+    long[] moduli = moduliFor(reduced.get());
+    long[] residues = new HamiltonianCycleCounter(reduced.get(), moduli).sum(pool);
+    BigInteger product = BigInteger.ONE.shiftLeft(64);
+    BigInteger directed = new BigInteger(Long.toUnsignedString(residues[0]));
+    for (int i = 1; i < moduli.length; i++) {
+      BigInteger modulus = BigInteger.valueOf(moduli[i]);
+      BigInteger step = BigInteger.valueOf(residues[i]).subtract(directed)
+          .multiply(product.modInverse(modulus)).mod(modulus);
+      directed = directed.add(product.multiply(step));
+      product = product.multiply(modulus);
+    }
+    return directed.shiftRight(1); // Every cycle was counted once in each direction.
+  }
+
+  /** Like {@link #count(BitGraph, ForkJoinPool)}, modulo an odd {@code modulus}. */
+  static long count(BitGraph graph, long modulus, ForkJoinPool pool) {
+    checkSize(graph.size());
+    if (modulus < 3 || modulus >= MAX_MODULUS || modulus % 2 == 0) {
+      throw new IllegalArgumentException(String.format(
+          "Counts are halved, so the modulus must be odd, and between 3 and 2^62, not %s.",
+          modulus));
+    }
+    Optional<BitGraph> reduced = reduce(graph);
+    if (!reduced.isPresent()) {
+      return 0;
+    }
+    long directed =
+        new HamiltonianCycleCounter(reduced.get(), new long[] { modulus }).sum(pool)[0];
+    // Halve by multiplying by the inverse of 2, which is (modulus + 1) / 2.
+    return BigInteger.valueOf(directed).multiply(BigInteger.valueOf((modulus + 1) / 2))
+        .mod(BigInteger.valueOf(modulus)).longValue();
+  }
+
+  private static void checkSize(int n) {
+    if (n > MAX_ELEMENTS) {
+      throw new IllegalArgumentException(String.format(
+          "This counter sums over 2^(N-1) subsets. Sizes greater than %s are not supported.",
+          MAX_ELEMENTS));
+    }
+  }
+
+  private static Optional<BitGraph> reduce(BitGraph graph) {
+    if (BitGraph.isTooSmallForACycle(graph.size())) {
+      return Optional.empty();
+    }
+    return ForcedEdgeReduction.reduce(graph);
+  }
+
+  /** 2^64, and enough primes that the moduli multiply to more than the directed cycle count. */
+  private static long[] moduliFor(BitGraph graph) {
+    // A cycle leaves 0 by one of its edges, and every other element by one of its other edges.
+    double bits = Math.log(graph.degree(0)) / Math.log(2);
+    for (int v = 1; v < graph.size(); v++) {
+      bits += Math.log(graph.degree(v) - 1) / Math.log(2);
+    }
+    List<Long> moduli = new ArrayList<>();
+    moduli.add(0L);
+    // Each prime adds more than 61 bits; leave one spare for rounding.
+    for (double covered = 64; covered < bits + 1; covered += 61) {
+      moduli.add(PRIMES[moduli.size() - 1]);
+    }
+    return moduli.stream().mapToLong(Long::longValue).toArray();
+  }
+
+  private static long[] primesAbove(long from, int count) {
+    long[] result = new long[count];
+    BigInteger p = BigInteger.valueOf(from);
+    for (int i = 0; i < count; i++) {
+      p = p.nextProbablePrime();
+      result[i] = p.longValueExact();
+    }
+    return result;
+  }
+
+  /** The inclusion-exclusion sum under every modulus, over all 2^(N-1) subsets. */
+  private long[] sum(ForkJoinPool pool) {
+    long subsets = 1L << (n - 1);
+    if (pool == null) {
+      return sum(0, subsets);
+    }
+    long minimumSubsetsPerTask =
+        Math.max(MINIMUM_SUBSETS_PER_TASK, subsets / (4 * pool.getParallelism()));
+    return pool.invoke(new SumTask(0, subsets, minimumSubsetsPerTask));
+  }
+
+  /**
+   * The inclusion-exclusion sum over the subsets in [from, to), where subset s includes 0 and
+   * element i + 1 for every set bit i of s.
+   */
+  private long[] sum(long from, long to) {
+    long[] totals = new long[moduli.length];
+    long[] walks = new long[n];
+    long[] nextWalks = new long[n];
+    for (long s = from; s < to; s++) {
+      long included = 1L | (s << 1);
+      if ((graph.neighbors(0) & included) == 0) {
+        continue; // No walk can even leave 0.
+      }
+      boolean negative = ((n - 1 - Long.bitCount(s)) & 1) != 0;
+      for (int m = 0; m < moduli.length; m++) {
+        long closed = closedWalks(included, moduli[m], walks, nextWalks);
+        totals[m] = negative ? subtract(totals[m], closed, moduli[m])
+            : add(totals[m], closed, moduli[m]);
+      }
+    }
+    return totals;
+  }
+
+  /** The N-step walks from 0 back to 0 within {@code included}, modulo {@code modulus}. */
+  private long closedWalks(long included, long modulus, long[] walks, long[] nextWalks) {
+    for (long bs = included; bs != 0; bs &= bs - 1) {
+      walks[Long.numberOfTrailingZeros(bs)] = 0;
+    }
+    walks[0] = 1;
+    for (int step = 0; step < n; step++) {
+      for (long bs = included; bs != 0; bs &= bs - 1) {
+        int u = Long.numberOfTrailingZeros(bs);
+        long total = 0;
+        for (long ns = graph.neighbors(u) & included; ns != 0; ns &= ns - 1) {
+          total = add(total, walks[Long.numberOfTrailingZeros(ns)], modulus);
+        }
+        nextWalks[u] = total;
+      }
+      long[] swap = walks;
+      walks = nextWalks;
+      nextWalks = swap;
+    }
+    return walks[0];
+  }
+
+  private static long add(long a, long b, long modulus) {
+    if (modulus == 0) {
+      return a + b; // Wrapping is reduction modulo 2^64.
+    }
+    long sum = a + b;
+    return sum >= modulus ? sum - modulus : sum;
+  }
+
+  private static long subtract(long a, long b, long modulus) {
+    if (modulus == 0) {
+      return a - b;
+    }
+    long difference = a - b;
+    return difference < 0 ? difference + modulus : difference;
+  }
+
+  private final class SumTask extends RecursiveTask<long[]> {
+    private static final long serialVersionUID = 1L;
+    private final long from;
+    private final long to;
+    private final long minimumSubsetsPerTask;
+
+    private SumTask(long from, long to, long minimumSubsetsPerTask) {
+      this.from = from;
+      this.to = to;
+      this.minimumSubsetsPerTask = minimumSubsetsPerTask;
+    }
+
+    @Override
+    protected long[] compute() {
+      if (to - from <= minimumSubsetsPerTask) {
+        return sum(from, to);
+      }
+      long middle = (from + to) >>> 1;
+      SumTask right = new SumTask(middle, to, minimumSubsetsPerTask);
+      right.fork();
+      long[] result = new SumTask(from, middle, minimumSubsetsPerTask).compute();
+      long[] other = right.join();
+      for (int m = 0; m < moduli.length; m++) {
+        result[m] = add(result[m], other[m], moduli[m]);
+      }
+      return result;
+    }
+  }
+}
@@ -0,0 +1,35 @@
+package com.gradybward.hamiltonian;
+
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+/** Tests counts too large for the counter to recover from a single modulus. */
+public class HamiltonianCycleCounterTest {
+
+  @Test
+  public void countsTheCyclesOfACompleteGraphBeyond64Bits() {
+    // The product of the degrees, 17^18, bounds the count at more than 2^64, so the count is summed
+    // under more than one modulus, and recovered from the residues.
+    int n = 18;
+    int[][] complete = new int[n][n - 1];
+    for (int i = 0; i < n; i++) {
+      for (int j = 0; j < n - 1; j++) {
+        complete[i][j] = j >= i ? j + 1 : j;
+      }
+    }
+    BigInteger expected = BigInteger.ONE;
+    for (int i = 3; i < n; i++) {
+      expected = expected.multiply(BigInteger.valueOf(i));
+    }
+    // 17! / 2 = 177843714048000.
+    assertTrue(expected.toString(), expected.equals(BigInteger.valueOf(177843714048000L)));
+    BigInteger count = HamiltonianCycleSolver.countHamiltonianCycles(complete);
+    assertTrue(count.toString(), count.equals(expected));
+    count = HamiltonianCycleSolver.countHamiltonianCycles(complete, ForkJoinPool.commonPool());
+    assertTrue(count.toString(), count.equals(expected));
+  }
+}
@@ -1,77 +1,322 @@
 package com.gradybward.hamiltonian;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
-import java.util.function.BiPredicate;
-import java.util.stream.Collectors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
 
 /**
  * Uses a basic DFS to solve the Hamiltonian cycle problem.
- * 
+ *
  * <p>
- * Uses the program execution stack as the queue, with a maximum stack size of O(N).
+ * The DFS is iterative rather than recursive: the path and the neighbors left to try at each
+ * depth live in O(N) arrays allocated before the search starts, so the search itself makes no
+ * function calls or allocations per step. Before stepping to a new element, the {@link PathPruner}
+ * checks that the extended path could still become a cycle, which cuts off most dead ends (and
+ * proves most cycle-free graphs cycle-free) long before the search would have reached them.
+ *
+ * <p>
+ * Given a {@link ForkJoinPool}, the top of the search tree is split into tasks: each task owns a
+ * path prefix, and either forks one task per way of extending it, or (once the pool has enough
+ * queued work to keep idle workers busy) searches everything below it on the current thread. Idle
+ * workers steal the queued prefixes. The first worker to find a cycle publishes it, and every
+ * other worker notices and gives up.
+ *
+ * <p>
+ * A directed DFS only ever steps along arcs, from an element to one of its neighbors, and only
+ * closes the cycle over an arc from the last element back to the first.
  */
-final class HamiltonianCycleDFS implements HamiltonianCycleSolver {
+final class HamiltonianCycleDFS extends BitGraphSolver {
+
+  // Don't bother splitting prefixes within this many elements of a complete path.
+  private static final int MINIMUM_SPLIT_REMAINING = 8;
+  // Split while fewer than this many tasks are waiting to be stolen from the current worker.
+  private static final int MAXIMUM_SURPLUS_TASKS = 3;
+
+  private final ForkJoinPool pool;
+  private final boolean directed;
+
+  HamiltonianCycleDFS() {
+    this(null);
+  }
+
+  HamiltonianCycleDFS(ForkJoinPool pool) {
+    this(pool, false);
+  }
+
+  HamiltonianCycleDFS(ForkJoinPool pool, boolean directed) {
+    this.pool = pool;
+    this.directed = directed;
+  }
+
+  @Override
+  Optional<int[]> solve(BitGraph graph, BooleanSupplier stopped, SearchStatistics stats) {
+    // We only need traverse from the 0th node, since all Hamiltonian cycles will include it!
+    return search(graph, new int[] { 0 }, false, stopped, stats);
+  }
+
+  @Override
+  boolean isDirected() {
+    return directed;
+  }
+
+  @Override
+  public int maxPathElements() {
+    return directed ? super.maxPathElements() : maxElements();
+  }
 
   @Override
-  public <T> Optional<List<T>> findHamiltonianCycle(List<T> elements,
-      BiPredicate<T, T> adjacencyFn) {
-    Map<Byte, T> translation = new HashMap<>();
-    Map<Byte, List<Byte>> adjacent = new HashMap<>();
-    for (int i = 0; i < elements.size(); i++) {
-      translation.put((byte) i, elements.get(i));
-      List<Byte> adj = new ArrayList<>();
-      for (int j = 0; j < elements.size(); j++) {
-        if (adjacencyFn.test(elements.get(i), elements.get(j))) {
-          adj.add((byte) j);
+  Optional<int[]> solvePath(BitGraph graph, int start, int end, BooleanSupplier stopped,
+      SearchStatistics stats) {
+    if (directed) {
+      return super.solvePath(graph, start, end, stopped, stats);
+    }
+    return searchPath(graph, start, end, stats,
+        reduced -> pathIn(reduced, start, end, stopped, stats));
+  }
+
+  private Optional<int[]> pathIn(BitGraph graph, int start, int end, BooleanSupplier stopped,
+      SearchStatistics stats) {
+    if (start >= 0) {
+      // Search for the cycle that runs from end to start (over the edge added between them), and
+      // then through everything else back to end; without that edge, it's the path.
+      return search(graph, new int[] { end, start }, false, stopped, stats).map(cycle -> {
+        int[] path = Arrays.copyOfRange(cycle, 1, cycle.length + 1);
+        path[cycle.length - 1] = end;
+        return path;
+      });
+    }
+    int leaf = -1;
+    int leaves = 0;
+    for (int v = 0; v < graph.size(); v++) {
+      if (graph.degree(v) == 1) {
+        leaf = v;
+        leaves++;
+      }
+    }
+    if (leaves > 2 || graph.minimumDegree() == 0) {
+      return Optional.empty();
+    }
+    // A path must end at every element with only one neighbor, so if there is one, start there.
+    int from = leaf >= 0 ? leaf : 0;
+    int to = leaf >= 0 ? leaf + 1 : graph.size();
+    for (int v = from; v < to && !stopped.getAsBoolean(); v++) {
+      Optional<int[]> path = search(graph, new int[] { v }, true, stopped, stats);
+      if (path.isPresent()) {
+        return path;
+      }
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Extends {@code prefix} into a cycle, or if {@code freeEnd}, into a path that ends anywhere, and
+   * returns it.
+   */
+  private Optional<int[]> search(BitGraph graph, int[] prefix, boolean freeEnd,
+      BooleanSupplier stopped, SearchStatistics stats) {
+    if (pool == null) {
+      Solver solver = new Solver(graph, prefix, freeEnd, directed, false, stopped, stats);
+      return solver.next() ? Optional.of(solver.cycle()) : Optional.empty();
+    }
+    AtomicReference<int[]> found = new AtomicReference<>();
+    pool.invoke(new SearchTask(graph, prefix, freeEnd, directed, found, stopped, stats));
+    return Optional.ofNullable(found.get());
+  }
+
+  private static final class SearchTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+    private final BitGraph graph;
+    private final int[] prefix;
+    private final boolean freeEnd;
+    private final boolean directed;
+    private final AtomicReference<int[]> found;
+    private final BooleanSupplier stopped;
+    private final SearchStatistics stats;
+
+    private SearchTask(BitGraph graph, int[] prefix, boolean freeEnd, boolean directed,
+        AtomicReference<int[]> found, BooleanSupplier stopped, SearchStatistics stats) {
+      this.graph = graph;
+      this.prefix = prefix;
+      this.freeEnd = freeEnd;
+      this.directed = directed;
+      this.found = found;
+      this.stopped = stopped;
+      this.stats = stats;
+    }
+
+    @Override
+    protected void compute() {
+      if (found.get() != null || stopped.getAsBoolean()) {
+        return;
+      }
+      if (prefix.length + MINIMUM_SPLIT_REMAINING < graph.size()
+          && ForkJoinTask.getSurplusQueuedTaskCount() < MAXIMUM_SURPLUS_TASKS) {
+        long seen = 0;
+        for (int i : prefix) {
+          seen |= 1L << i;
+        }
+        List<SearchTask> extensions = new ArrayList<>();
+        for (long bs = graph.neighbors(prefix[prefix.length - 1]) & ~seen; bs != 0; bs &= bs
+            - 1) {
+          int[] extended = Arrays.copyOf(prefix, prefix.length + 1);
+          extended[prefix.length] = Long.numberOfTrailingZeros(bs);
+          extensions.add(new SearchTask(graph, extended, freeEnd, directed, found, stopped, stats));
         }
+        stats.addNodesExpanded(extensions.size());
+        invokeAll(extensions);
+        return;
+      }
+      Solver solver = new Solver(graph, prefix, freeEnd, directed, false,
+          () -> found.get() != null || stopped.getAsBoolean(), stats);
+      if (solver.next()) {
+        found.compareAndSet(null, solver.cycle());
       }
-      adjacent.put((byte) i, adj);
     }
-    // We only need traverse from the 0th node, since all Hamiltonian cycles will include it!
-    Optional<List<Byte>> result = new Solver(adjacent, (byte) 0).getHamiltonianCycle();
-    return result.map(r -> r.stream().map(translation::get).collect(Collectors.toList()));
   }
 
-  private static final class Solver {
-    private final Map<Byte, List<Byte>> adjacent;
+  /**
+   * An iterative DFS that extends a fixed prefix into a cycle (or, with a free end, just into a
+   * path through every element). The path, the set of elements on it, and (for every depth) the
+   * neighbors not yet tried there are all kept in arrays allocated up front, so the search itself
+   * allocates nothing.
+   *
+   * <p>
+   * The search is resumable: {@link #next()} returns at each cycle it finds, and the next call
+   * carries on from there, which is how the {@link HamiltonianCycleEnumerator} lists them all.
+   */
+  static final class Solver {
+    // How many steps to take between checks of whether we've been told to stop.
+    private static final int STEPS_BETWEEN_STOP_CHECKS = 1024;
+
+    private final BitGraph graph;
     private final int n;
-    private final boolean[] seen;
-    private final List<Byte> inOrder;
-
-    private Solver(Map<Byte, List<Byte>> adjacent, Byte initial) {
-      this.adjacent = adjacent;
-      n = adjacent.size();
-      seen = new boolean[n];
-      inOrder = new ArrayList<>();
-      seen[initial] = true;
-      inOrder.add(initial);
+    private final int prefixLength;
+    private final boolean freeEnd;
+    private final boolean eachCycleOnce;
+    private final int[] inOrder;
+    // untried[i] holds the neighbors of inOrder[i] that haven't been tried as inOrder[i + 1].
+    private final long[] untried;
+    private final PathPruner pruner;
+    private final BooleanSupplier stopped;
+    private final SearchStatistics stats;
+    private long seen;
+    // How many elements the path has, or 0 before the search has started.
+    private int length;
+    private boolean exhausted;
+    private int stepsUntilStopCheck = STEPS_BETWEEN_STOP_CHECKS;
+    // Steps taken, which are only added to the stats once the search returns.
+    private long expanded;
+
+    /**
+     * A search that extends {@code prefix}. If {@code eachCycleOnce}, an undirected cycle is only
+     * found in the direction that leaves the prefix's first element for the smaller of its two
+     * neighbors on the cycle; the prefix must then be that one element.
+     */
+    Solver(BitGraph graph, int[] prefix, boolean freeEnd, boolean directed, boolean eachCycleOnce,
+        BooleanSupplier stopped, SearchStatistics stats) {
+      this.graph = graph;
+      this.prefixLength = prefix.length;
+      this.freeEnd = freeEnd;
+      this.eachCycleOnce = eachCycleOnce;
+      this.stopped = stopped;
+      this.stats = stats;
+      n = graph.size();
+      inOrder = Arrays.copyOf(prefix, n);
+      untried = new long[n];
+      pruner = new PathPruner(graph, directed);
+    }
+
+    /**
+     * Returns true if it found another cycle, which is left in {@link #cycle()} until the next
+     * call. Returns false once there are no more, or once told to stop.
+     */
+    boolean next() {
+      boolean found = !exhausted && search();
+      stats.addNodesExpanded(expanded);
+      expanded = 0;
+      return found;
     }
 
-    private Optional<List<Byte>> getHamiltonianCycle() {
-      if (inOrder.size() == n) {
-        if (adjacent.get(inOrder.get(0)).contains(inOrder.get(n - 1))) {
-          return Optional.of(inOrder);
+    private boolean search() {
+      if (length == 0) {
+        length = prefixLength;
+        for (int i = 0; i < length; i++) {
+          seen |= 1L << inOrder[i];
+        }
+        if (length == n) {
+          exhausted = true;
+          return freeEnd || graph.isAdjacent(inOrder[n - 1], inOrder[0]);
         }
-        return Optional.empty();
+        if (!canComplete(seen, inOrder[length - 1])) {
+          exhausted = true;
+          return false;
+        }
+        untried[length - 1] = graph.neighbors(inOrder[length - 1]) & ~seen;
       }
-      for (byte adj : adjacent.get(inOrder.get(inOrder.size() - 1))) {
-        if (seen[adj]) {
+      while (true) {
+        if (--stepsUntilStopCheck == 0) {
+          stepsUntilStopCheck = STEPS_BETWEEN_STOP_CHECKS;
+          if (stopped.getAsBoolean()) {
+            return false;
+          }
+        }
+        long bs = untried[length - 1];
+        if (bs == 0) {
+          // Every way of extending this path has been tried, so step back.
+          if (length == prefixLength) {
+            exhausted = true;
+            return false;
+          }
+          seen &= ~(1L << inOrder[--length]);
+          continue;
+        }
+        untried[length - 1] = bs & (bs - 1);
+        int adj = Long.numberOfTrailingZeros(bs);
+        expanded++;
+        if (length + 1 == n) {
+          // To list each cycle once, only close it in the direction that leaves the first element
+          // for the smaller of its two neighbors on the cycle.
+          if (freeEnd || (graph.isAdjacent(adj, inOrder[0])
+              && (!eachCycleOnce || adj > inOrder[1]))) {
+            inOrder[length] = adj;
+            return true;
+          }
+          continue;
+        }
+        long extended = seen | (1L << adj);
+        if (eachCycleOnce && !canCloseOnce(extended, length == 1 ? adj : inOrder[1])) {
           continue;
         }
-        seen[adj] = true;
-        inOrder.add(adj);
-        Optional<List<Byte>> traversal = getHamiltonianCycle();
-        if (traversal.isPresent()) {
-          return traversal;
+        if (!canComplete(extended, adj)) {
+          continue; // Skip paths that the PathPruner can already tell are dead ends.
         }
-        inOrder.remove(inOrder.size() - 1);
-        seen[adj] = false;
+        inOrder[length++] = adj;
+        seen = extended;
+        untried[length - 1] = graph.neighbors(adj) & ~seen;
       }
-      return Optional.empty();
+    }
+
+    /**
+     * Whether some neighbor of the first element that's left could close the cycle in the
+     * direction that's listed, being greater than its {@code second} element.
+     */
+    private boolean canCloseOnce(long seen, int second) {
+      return (graph.neighbors(inOrder[0]) & ~seen & (-2L << second)) != 0;
+    }
+
+    private boolean canComplete(long seen, int head) {
+      return freeEnd ? pruner.canCompletePath(seen, head)
+          : pruner.canComplete(seen, inOrder[0], head);
+    }
+
+    int[] cycle() {
+      return inOrder;
     }
   }
 }
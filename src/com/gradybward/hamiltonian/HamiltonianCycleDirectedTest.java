@@ -0,0 +1,79 @@
+package com.gradybward.hamiltonian;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+/**
+ * Tests that the directed solvers only follow arcs forwards, on one-way versions of the graphs of
+ * {@link HamiltonianCycleTest}.
+ */
+@RunWith(Parameterized.class)
+public class HamiltonianCycleDirectedTest {
+
+  private final HamiltonianCycleSolver solver;
+  private final String graphName;
+  private final int[][] adjacencyList;
+  private final boolean cycleExists;
+
+  public HamiltonianCycleDirectedTest(HamiltonianCycleSolver solver, String graphName,
+      int[][] adjacencyList, boolean cycleExists) {
+    this.solver = solver;
+    this.graphName = graphName;
+    this.adjacencyList = adjacencyList;
+    this.cycleExists = cycleExists;
+  }
+
+  @Test
+  public void runTestOneWayCycle() {
+    String message = String.format("%s %s", solver.getClass(), graphName);
+    Optional<int[]> cycle = solver.findHamiltonianCycle(adjacencyList);
+    assertTrue(message, cycle.isPresent() == cycleExists);
+    if (!cycle.isPresent()) {
+      return;
+    }
+    // Keep only the arcs that run backwards around that cycle, so there's one way around.
+    int n = adjacencyList.length;
+    int[][] backwards = new int[n][];
+    for (int i = 0; i < n; i++) {
+      backwards[cycle.get()[(i + 1) % n]] = new int[] { cycle.get()[i] };
+    }
+    Optional<int[]> reversed = solver.findHamiltonianCycle(backwards);
+    assertTrue(message, reversed.isPresent());
+    for (int i = 0; i < n; i++) {
+      assertTrue(message, backwards[reversed.get()[i]][0] == reversed.get()[(i + 1) % n]);
+    }
+    if (n > ((SizeLimits) solver).maxPathElements()) {
+      return;
+    }
+    // The only path that ends on the cycle's first element starts right after it.
+    int first = reversed.get()[0];
+    int afterFirst = reversed.get()[1];
+    Optional<int[]> path = solver.findHamiltonianPath(backwards, afterFirst, first);
+    assertTrue(message, path.isPresent() && path.get()[n - 1] == first);
+    for (int i = 1; i < n; i++) {
+      assertTrue(message, backwards[path.get()[i - 1]][0] == path.get()[i]);
+    }
+    assertTrue(message, !solver.findHamiltonianPath(backwards, first, afterFirst).isPresent());
+  }
+
+  @Parameterized.Parameters
+  public static List<Object[]> testCases() {
+    List<Object[]> result = new ArrayList<>();
+    for (Object[] o : HamiltonianCycleTest.graphs()) {
+      for (HamiltonianCycleSolver s : HamiltonianCycleTest.directedSolvers()) {
+        if (((int[][]) o[1]).length > ((SizeLimits) s).maxElements()) {
+          continue;
+        }
+        result.add(new Object[] { s, o[0], o[1], o[2] });
+      }
+    }
+    return result;
+  }
+}
@@ -0,0 +1,72 @@
+package com.gradybward.hamiltonian;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazily lists every Hamiltonian cycle of an undirected graph of up to 64 elements, each once.
+ *
+ * <p>
+ * This is the {@link HamiltonianCycleDFS}'s search, except that rather than returning at the first
+ * cycle, it pauses there: {@link #next()} hands the cycle out, and the following
+ * {@link #hasNext()} resumes the search from where it left off. So only one path is ever held,
+ * and memory stays O(N) however many cycles there are; a caller that stops pulling stops the
+ * search. The {@link ForcedEdgeReduction} and {@link PathPruner} only ever discard edges and paths
+ * that are in no cycle at all, so they prune here just as well.
+ *
+ * <p>
+ * A cycle can be written starting from any of its elements, in either direction. Each is listed
+ * once, starting from element 0, in the direction that visits the smaller of 0's two neighbors on
+ * the cycle first. Paths that can't end that way (because every neighbor of 0 that could close
+ * them is smaller than the second element) are cut off as soon as that's the case.
+ */
+final class HamiltonianCycleEnumerator implements Iterator<int[]> {
+
+  private final HamiltonianCycleDFS.Solver solver;
+  // Whether the solver holds a cycle that hasn't been handed out yet.
+  private boolean pending;
+  private boolean exhausted;
+
+  private HamiltonianCycleEnumerator(BitGraph graph) {
+    solver = new HamiltonianCycleDFS.Solver(graph, new int[] { 0 }, false, false, true,
+        () -> false, SearchStatistics.discarded());
+  }
+
+  /** The cycles of {@code graph}, in the order the DFS finds them. */
+  static Stream<int[]> cycles(BitGraph graph) {
+    if (BitGraph.isTooSmallForACycle(graph.size())) {
+      return Stream.empty();
+    }
+    Optional<BitGraph> reduced = ForcedEdgeReduction.reduce(graph);
+    if (!reduced.isPresent()) {
+      return Stream.empty();
+    }
+    return StreamSupport.stream(
+        Spliterators.spliteratorUnknownSize(new HamiltonianCycleEnumerator(reduced.get()),
+            Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL),
+        false);
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (!pending && !exhausted) {
+      pending = solver.next();
+      exhausted = !pending;
+    }
+    return pending;
+  }
+
+  @Override
+  public int[] next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    pending = false;
+    return solver.cycle().clone();
+  }
+}
@@ -0,0 +1,203 @@
+package com.gradybward.hamiltonian;
+
+import java.util.HashMap;
+import java.util.Optional;
+import java.util.function.BooleanSupplier;
+
+/**
+ * The {@link HamiltonianCycleBFS} algorithm, for sparse undirected graphs of up to 256 elements.
+ *
+ * <p>
+ * Works exactly like the BFS (building words up to length CEIL(1 + N/2), then looking up the
+ * second half that completes each first half), except that element sets are fixed-width multi-word
+ * bitstrings, and steps in a path are shorts rather than bytes. Each path costs 2 bytes per step
+ * and 8 bytes per 64 elements more than it would in the BFS, so prefer the BFS when it fits.
+ *
+ * <p>
+ * Like the BFS, this is exponential in space, and only practical for very sparse graphs (where
+ * most elements have degree 2 or 3) at these sizes.
+ */
+final class HamiltonianCycleLargeBFS extends LargeBitGraphSolver {
+
+  static final int MAX_ELEMENTS = 256;
+
+  @Override
+  public int maxElements() {
+    return MAX_ELEMENTS;
+  }
+
+  @Override
+  void checkSize(int n) {
+    if (n > MAX_ELEMENTS) {
+      throw new IllegalArgumentException(String.format(
+          "This solver records steps as shorts and element sets as up to %s longs. "
+              + "Sizes greater than %s are not supported.",
+          LargeBitGraph.wordsFor(MAX_ELEMENTS), MAX_ELEMENTS));
+    }
+  }
+
+  @Override
+  Optional<int[]> solve(LargeBitGraph graph, BooleanSupplier stopped, SearchStatistics stats) {
+    return new Solver(graph, stopped, stats).calculate().map(steps -> {
+      int[] result = new int[steps.length];
+      for (int i = 0; i < steps.length; i++) {
+        result[i] = steps[i];
+      }
+      return result;
+    });
+  }
+
+  private static final class Solver {
+    // How many paths to extend or look up between checks of whether we've been told to stop.
+    private static final int PATHS_BETWEEN_STOP_CHECKS = 1024;
+
+    private final LargeBitGraph graph;
+    private final BooleanSupplier stopped;
+    private final SearchStatistics stats;
+    private final HashMap<Integer, LargePathStore> lengthToPaths;
+    private final long[] completeBS;
+    private final int n;
+    private final int words;
+    // The lengths of the two halves joined into a complete cycle; see HamiltonianCycleBFS.
+    private final int l1;
+    private final int l2;
+    private int longestPathsAreOfLength;
+
+    private Solver(LargeBitGraph graph, BooleanSupplier stopped, SearchStatistics stats) {
+      this.graph = graph;
+      this.stopped = stopped;
+      this.stats = stats;
+      n = graph.size();
+      words = graph.words();
+      lengthToPaths = new HashMap<>();
+      LargePathStore paths = new LargePathStore(2, words);
+      long[] elements = new long[words];
+      for (short a = 0; a < n; a++) {
+        for (short b = (short) (a + 1); b < n; b++) {
+          if (graph.isAdjacent(a, b)) {
+            set(elements, a);
+            set(elements, b);
+            paths.add(LargePathStore.startAndEnd(a, b), elements, new short[] { a, b });
+            clear(elements, a);
+            clear(elements, b);
+          }
+        }
+      }
+      lengthToPaths.put(2, paths);
+      stats.pathsStored(2, paths.size());
+      stats.pathStoreBytes(paths.bytes());
+      completeBS = graph.vertices();
+      l1 = (n + 2) / 2;
+      l2 = (n + 2) - l1;
+      longestPathsAreOfLength = 2;
+    }
+
+    private Optional<short[]> calculate() {
+      while (longestPathsAreOfLength < l2) {
+        addOneLinkToEveryPathOfLongestLength();
+        if (stopped.getAsBoolean()) {
+          return Optional.empty(); // The level may be incomplete, so don't look for a cycle in it.
+        }
+      }
+      return getCompletePathFromTwoPartialPaths();
+    }
+
+    private void addOneLinkToEveryPathOfLongestLength() {
+      LargePathStore paths = lengthToPaths.get(longestPathsAreOfLength);
+      int length = longestPathsAreOfLength;
+      LargePathStore newPaths = new LargePathStore(length + 1, words);
+      short[] newPath = new short[length + 1];
+      long[] elements = new long[words];
+      int path = 0;
+      for (; path < paths.size(); path++) {
+        if (path % PATHS_BETWEEN_STOP_CHECKS == 0 && stopped.getAsBoolean()) {
+          break;
+        }
+        for (int w = 0; w < words; w++) {
+          elements[w] = paths.elements(path, w);
+        }
+        short start = paths.first(path);
+        short end = paths.last(path);
+        for (int w = 0; w < words; w++) {
+          for (long bs = graph.neighbors(start, w) & ~elements[w]; bs != 0; bs &= bs - 1) {
+            short newElement = (short) ((w << 6) + Long.numberOfTrailingZeros(bs));
+            newPath[0] = newElement;
+            paths.copy(path, newPath, 1);
+            set(elements, newElement);
+            newPaths.add(LargePathStore.startAndEnd(newElement, end), elements, newPath);
+            clear(elements, newElement);
+          }
+          for (long bs = graph.neighbors(end, w) & ~elements[w]; bs != 0; bs &= bs - 1) {
+            short newElement = (short) ((w << 6) + Long.numberOfTrailingZeros(bs));
+            paths.copy(path, newPath, 0);
+            newPath[length] = newElement;
+            set(elements, newElement);
+            newPaths.add(LargePathStore.startAndEnd(start, newElement), elements, newPath);
+            clear(elements, newElement);
+          }
+        }
+      }
+      stats.addNodesExpanded(path);
+      long liveBytes = newPaths.bytes();
+      for (LargePathStore live : lengthToPaths.values()) {
+        liveBytes += live.bytes();
+      }
+      stats.pathStoreBytes(liveBytes);
+      stats.pathsStored(length + 1, newPaths.size());
+      // Only the newest level and L1 are ever read again, so let the rest be collected.
+      if (longestPathsAreOfLength != l1) {
+        lengthToPaths.remove(longestPathsAreOfLength);
+      }
+      longestPathsAreOfLength++;
+      lengthToPaths.put(longestPathsAreOfLength, newPaths);
+    }
+
+    private Optional<short[]> getCompletePathFromTwoPartialPaths() {
+      LargePathStore paths1 = lengthToPaths.get(l1);
+      LargePathStore paths2 = lengthToPaths.get(l2);
+      long[] elements = new long[words];
+      for (int pathA = 0; pathA < paths1.size(); pathA++) {
+        if (pathA % PATHS_BETWEEN_STOP_CHECKS == 0 && stopped.getAsBoolean()) {
+          return Optional.empty();
+        }
+        // A matching second half has exactly the elements the first is missing, plus the ends.
+        for (int w = 0; w < words; w++) {
+          elements[w] = completeBS[w] ^ paths1.elements(pathA, w);
+        }
+        set(elements, paths1.first(pathA));
+        set(elements, paths1.last(pathA));
+        int pathB = paths2.find(paths1.startAndEnd(pathA), elements);
+        if (pathB >= 0) {
+          return Optional.of(join(paths1, pathA, paths2, pathB));
+        }
+      }
+      return Optional.empty();
+    }
+
+    private short[] join(LargePathStore paths1, int pathA, LargePathStore paths2, int pathB) {
+      short[] result = new short[n];
+      paths1.copy(pathA, result, 0);
+      int i = paths1.pathLength();
+      int lengthB = paths2.pathLength();
+      // Don't include the first or last element from the second path, these are start + end.
+      if (result[i - 1] == paths2.first(pathB)) {
+        for (int j = 1; j < lengthB - 1; j++) {
+          result[i + j - 1] = paths2.get(pathB, j);
+        }
+      } else {
+        for (int j = lengthB - 2; j > 0; j--) {
+          result[i + lengthB - 2 - j] = paths2.get(pathB, j);
+        }
+      }
+      return result;
+    }
+
+    private static void set(long[] bs, int location) {
+      bs[location >>> 6] |= 1L << location;
+    }
+
+    private static void clear(long[] bs, int location) {
+      bs[location >>> 6] &= ~(1L << location);
+    }
+  }
+}
@@ -0,0 +1,180 @@
+package com.gradybward.hamiltonian;
+
+import java.util.Optional;
+import java.util.function.BooleanSupplier;
+
+/**
+ * The {@link HamiltonianCycleDFS} algorithm, for graphs of any size.
+ *
+ * <p>
+ * Elements are int ids and the visited set is a multi-word bitstring (see {@link LargeBitGraph}),
+ * so nothing caps the size of the graph. As in the DFS, the search is iterative and allocates
+ * nothing per step: the path, the candidates left to try at every depth, and the pruner's scratch
+ * space are all allocated up front, in O(N + E) space.
+ *
+ * <p>
+ * Two things keep it practical on large sparse graphs:
+ * <ul>
+ * <li>The {@link LargePathPruner} rejects every extension that leaves some unvisited element
+ * with fewer than two usable neighbors, or that splits the rest of the graph apart.</li>
+ * <li>The search starts from an element of minimum degree, and tries the neighbors with the
+ * fewest unvisited neighbors of their own first (Warnsdorff's rule), which tends to use up the
+ * hard-to-reach elements before they are cut off.</li>
+ * </ul>
+ *
+ * <p>
+ * This is still exponential in the worst case: the heuristics only change how soon it finds a
+ * cycle, and the pruner how soon it gives up.
+ */
+final class HamiltonianCycleLargeDFS extends LargeBitGraphSolver {
+
+  @Override
+  Optional<int[]> solve(LargeBitGraph graph, BooleanSupplier stopped, SearchStatistics stats) {
+    Solver solver = new Solver(graph, stopped, stats);
+    return solver.findHamiltonianCycle() ? Optional.of(solver.cycle()) : Optional.empty();
+  }
+
+  private static final class Solver {
+    // How many steps to take between checks of whether we've been told to stop. Steps here cost
+    // O(N + E), so check far more often than the DFS does.
+    private static final int STEPS_BETWEEN_STOP_CHECKS = 16;
+
+    private final LargeBitGraph graph;
+    private final BooleanSupplier stopped;
+    private final SearchStatistics stats;
+    // Steps taken, which are only added to the stats once the search is over.
+    private long expanded;
+    private final int n;
+    private final int[][] adjacency;
+    private final LargePathPruner pruner;
+    private final int[] inOrder;
+    private final long[] seen;
+    // The number of unseen neighbors of every element.
+    private final int[] freeDegree;
+    // The candidates for inOrder[i + 1] are candidates[next[i]] up to candidates[end[i]].
+    private final int[] candidates;
+    private final int[] next;
+    private final int[] end;
+
+    private Solver(LargeBitGraph graph, BooleanSupplier stopped, SearchStatistics stats) {
+      this.graph = graph;
+      this.stopped = stopped;
+      this.stats = stats;
+      n = graph.size();
+      adjacency = graph.adjacencyLists();
+      pruner = new LargePathPruner(adjacency);
+      inOrder = new int[n];
+      seen = new long[graph.words()];
+      freeDegree = new int[n];
+      int degrees = 0;
+      for (int v = 0; v < n; v++) {
+        freeDegree[v] = adjacency[v].length;
+        degrees += adjacency[v].length;
+      }
+      // Each element on the path contributes at most its degree in candidates.
+      candidates = new int[degrees];
+      next = new int[n];
+      end = new int[n];
+    }
+
+    /** Returns true if a cycle was found, in which case it is left in {@link #cycle()}. */
+    private boolean findHamiltonianCycle() {
+      boolean found = search();
+      stats.addNodesExpanded(expanded);
+      return found;
+    }
+
+    private boolean search() {
+      int start = 0;
+      for (int v = 1; v < n; v++) {
+        if (adjacency[v].length < adjacency[start].length) {
+          start = v;
+        }
+      }
+      // Every Hamiltonian cycle includes the start, so there's no need to try any other.
+      inOrder[0] = start;
+      visit(start);
+      if (!pruner.canComplete(seen, start, start)) {
+        return false;
+      }
+      int length = 1;
+      addCandidates(length, 0);
+      int stepsUntilStopCheck = STEPS_BETWEEN_STOP_CHECKS;
+      while (true) {
+        if (--stepsUntilStopCheck == 0) {
+          stepsUntilStopCheck = STEPS_BETWEEN_STOP_CHECKS;
+          if (stopped.getAsBoolean()) {
+            return false;
+          }
+        }
+        if (next[length - 1] == end[length - 1]) {
+          // Every way of extending this path has failed, so step back.
+          if (length == 1) {
+            return false;
+          }
+          unvisit(inOrder[--length]);
+          continue;
+        }
+        int adj = candidates[next[length - 1]++];
+        expanded++;
+        if (length + 1 == n) {
+          if (graph.isAdjacent(start, adj)) {
+            inOrder[length] = adj;
+            return true;
+          }
+          continue;
+        }
+        visit(adj);
+        if (!pruner.canComplete(seen, start, adj)) {
+          unvisit(adj); // Skip paths that the pruner can already tell are dead ends.
+          continue;
+        }
+        inOrder[length++] = adj;
+        addCandidates(length, end[length - 2]);
+      }
+    }
+
+    /**
+     * Lists the unseen neighbors of inOrder[length - 1] from candidates[from] onwards, those with
+     * the fewest unseen neighbors of their own first.
+     */
+    private void addCandidates(int length, int from) {
+      int to = from;
+      for (int w : adjacency[inOrder[length - 1]]) {
+        if (isSeen(w)) {
+          continue;
+        }
+        // Insertion sort: lists are as short as the element's degree.
+        int i = to++;
+        for (; i > from && freeDegree[candidates[i - 1]] > freeDegree[w]; i--) {
+          candidates[i] = candidates[i - 1];
+        }
+        candidates[i] = w;
+      }
+      next[length - 1] = from;
+      end[length - 1] = to;
+    }
+
+    private void visit(int v) {
+      seen[v >>> 6] |= 1L << v;
+      for (int w : adjacency[v]) {
+        freeDegree[w]--;
+      }
+    }
+
+    private void unvisit(int v) {
+      seen[v >>> 6] &= ~(1L << v);
+      for (int w : adjacency[v]) {
+        freeDegree[w]++;
+      }
+    }
+
+    private boolean isSeen(int v) {
+      return (seen[v >>> 6] & (1L << v)) != 0;
+    }
+
+    private int[] cycle() {
+      return inOrder;
+    }
+  }
+}
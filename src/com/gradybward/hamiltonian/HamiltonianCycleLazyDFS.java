@@ -0,0 +1,315 @@
+package com.gradybward.hamiltonian;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BiPredicate;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongConsumer;
+
+/**
+ * A DFS that only evaluates the adjacency function when it needs to.
+ *
+ * <p>
+ * The other solvers build the whole graph before they start, which costs N * (N - 1) calls to the
+ * adjacency function. Here, a pair is only evaluated (and then remembered) when the search first
+ * considers stepping from one to the other. Elements already on the path are never asked about,
+ * and the search stops looking at an element's candidates as soon as it finds a neighbor, so an
+ * easy instance costs about as many calls as the degrees of the elements on the cycle, rather than
+ * N^2. When the {@link AdjacencyBuild} is {@link AdjacencyBuild#undirected() undirected}, each
+ * answer is also remembered for the reversed pair. Evaluation is always sequential, whatever the
+ * build says.
+ *
+ * <p>
+ * The price is that nothing that needs the whole graph can run: there's no
+ * {@link ForcedEdgeReduction} and no {@link PathPruner}, and elements are tried in index order. So
+ * this is for graphs that probably have a cycle; on graphs that don't, it will evaluate most of the
+ * graph anyway, and then search it far more slowly than the {@link HamiltonianCycleLargeDFS}.
+ *
+ * <p>
+ * After every solve on a list of elements, the number of calls saved (compared to building the
+ * whole graph with the same build) is passed to the callback, if there is one.
+ */
+final class HamiltonianCycleLazyDFS implements HamiltonianCycleSolver, SizeLimits {
+
+  private final LongConsumer predicateCallsSaved;
+
+  HamiltonianCycleLazyDFS() {
+    this(saved -> {});
+  }
+
+  HamiltonianCycleLazyDFS(LongConsumer predicateCallsSaved) {
+    this.predicateCallsSaved = predicateCallsSaved;
+  }
+
+  @Override
+  public int maxElements() {
+    return Integer.MAX_VALUE;
+  }
+
+  @Override
+  public int maxPathElements() {
+    return Integer.MAX_VALUE;
+  }
+
+  @Override
+  public <T> HamiltonianCycleResult<T> solve(List<T> elements, BiPredicate<T, T> adjacencyFn,
+      AdjacencyBuild build, CancellationToken token) {
+    SearchStatistics stats = new SearchStatistics();
+    long start = System.nanoTime();
+    Optional<int[]> idxes = findHamiltonianCycle(elements.size(), elements.size(),
+        (i, j) -> adjacencyFn.test(elements.get(i), elements.get(j)), build.isUndirected(),
+        token::isCancelled, predicateCallsSaved, stats);
+    // Building and searching are interleaved, so all of it counts as searching.
+    stats.addSearchNanos(System.nanoTime() - start);
+    return HamiltonianCycleResult.of(elements, idxes, token, stats);
+  }
+
+  @Override
+  public <T> HamiltonianCycleResult<T> solvePath(List<T> elements, BiPredicate<T, T> adjacencyFn,
+      AdjacencyBuild build, CancellationToken token) {
+    return solvePath(elements, adjacencyFn, -1, -1, build, token);
+  }
+
+  @Override
+  public <T> HamiltonianCycleResult<T> solvePath(List<T> elements, BiPredicate<T, T> adjacencyFn,
+      T start, T end, AdjacencyBuild build, CancellationToken token) {
+    int[] ends = PathToCycleReduction.endIndexes(elements, start, end);
+    return solvePath(elements, adjacencyFn, ends[0], ends[1], build, token);
+  }
+
+  private <T> HamiltonianCycleResult<T> solvePath(List<T> elements,
+      BiPredicate<T, T> adjacencyFn, int start, int end, AdjacencyBuild build,
+      CancellationToken token) {
+    SearchStatistics stats = new SearchStatistics();
+    long startedAt = System.nanoTime();
+    Optional<int[]> idxes = findHamiltonianPath(elements.size(),
+        (i, j) -> adjacencyFn.test(elements.get(i), elements.get(j)), start, end,
+        build.isUndirected(), token::isCancelled, predicateCallsSaved, stats);
+    stats.addSearchNanos(System.nanoTime() - startedAt);
+    return HamiltonianCycleResult.of(elements, idxes, token, stats);
+  }
+
+  // The graph is already built, so there are no calls left to save or report; these just search.
+  @Override
+  public Optional<int[]> findHamiltonianCycle(int[][] adjacencyLists) {
+    return findHamiltonianCycle(LargeBitGraph.of(adjacencyLists));
+  }
+
+  @Override
+  public Optional<int[]> findHamiltonianCycle(long[] neighbors) {
+    return findHamiltonianCycle(LargeBitGraph.of(neighbors));
+  }
+
+  @Override
+  public Optional<int[]> findHamiltonianCycle(BitSet[] neighbors) {
+    return findHamiltonianCycle(LargeBitGraph.of(neighbors));
+  }
+
+  @Override
+  public Optional<int[]> findHamiltonianPath(int[][] adjacencyLists) {
+    LargeBitGraph graph = LargeBitGraph.of(adjacencyLists);
+    return findHamiltonianPath(graph.size(), graph::isAdjacent, -1, -1, false, () -> false,
+        saved -> {}, SearchStatistics.discarded());
+  }
+
+  @Override
+  public Optional<int[]> findHamiltonianPath(int[][] adjacencyLists, int start, int end) {
+    PathToCycleReduction.checkEnds(adjacencyLists.length, start, end);
+    LargeBitGraph graph = LargeBitGraph.of(adjacencyLists);
+    return findHamiltonianPath(graph.size(), graph::isAdjacent, start, end, false, () -> false,
+        saved -> {}, SearchStatistics.discarded());
+  }
+
+  private Optional<int[]> findHamiltonianCycle(LargeBitGraph graph) {
+    return findHamiltonianCycle(graph.size(), graph.size(), graph::isAdjacent, false, () -> false,
+        saved -> {}, SearchStatistics.discarded());
+  }
+
+  /**
+   * Searches the first {@code n} elements, of which only pairs among the first {@code counted}
+   * are calls to the adjacency function, and so counted and reported.
+   */
+  private static Optional<int[]> findHamiltonianCycle(int n, int counted, PairTest adjacencyFn,
+      boolean undirected, BooleanSupplier stopped, LongConsumer predicateCallsSaved,
+      SearchStatistics stats) {
+    if (BitGraph.isTooSmallForACycle(n)) {
+      predicateCallsSaved.accept(0);
+      return Optional.empty();
+    }
+    Solver solver = new Solver(n, counted, adjacencyFn, undirected, stopped);
+    boolean found = solver.findHamiltonianCycle();
+    long eagerCalls =
+        undirected ? (long) counted * (counted - 1) / 2 : (long) counted * (counted - 1);
+    predicateCallsSaved.accept(eagerCalls - solver.predicateCalls);
+    stats.addPredicateCalls(solver.predicateCalls);
+    stats.addNodesExpanded(solver.expanded);
+    return found ? Optional.of(solver.cycle()) : Optional.empty();
+  }
+
+  /**
+   * Searches for a path as a cycle through an extra element n (see {@link PathToCycleReduction}),
+   * which is only ever tried last. It's joined to the path's ends both ways, since the search reads
+   * the graph as undirected; the path is then turned round to run from {@code start}.
+   */
+  private static Optional<int[]> findHamiltonianPath(int n, PairTest adjacencyFn, int start,
+      int end, boolean undirected, BooleanSupplier stopped, LongConsumer predicateCallsSaved,
+      SearchStatistics stats) {
+    if (n <= 1) {
+      predicateCallsSaved.accept(0);
+      return n == 0 ? Optional.empty() : Optional.of(new int[] { 0 });
+    }
+    PairTest withExtra = (i, j) -> {
+      if (i != n && j != n) {
+        return adjacencyFn.test(i, j);
+      }
+      int other = i == n ? j : i;
+      return start < 0 || other == start || other == end;
+    };
+    return findHamiltonianCycle(n + 1, n, withExtra, undirected, stopped, predicateCallsSaved,
+        stats).map(cycle -> PathToCycleReduction.pathOf(cycle, start));
+  }
+
+  /** The adjacency function, on element indexes. */
+  private interface PairTest {
+    boolean test(int i, int j);
+  }
+
+  private static final class Solver {
+    // How many steps to take between checks of whether we've been told to stop. Every call to the
+    // adjacency function is checked too, since those may be expensive.
+    private static final int STEPS_BETWEEN_STOP_CHECKS = 1024;
+
+    private final PairTest adjacencyFn;
+    private final BooleanSupplier stopped;
+    private final boolean undirected;
+    private final int n;
+    // Pairs with elements from here on aren't calls to the adjacency function, so aren't counted.
+    private final int counted;
+    private final int words;
+    // Bit j of row i (in LargeBitGraph's layout) is set in known once we know whether i and j are
+    // adjacent, and then set in neighbors if they are.
+    private final long[] known;
+    private final long[] neighbors;
+    private final int[] inOrder;
+    private final long[] seen;
+    // Where to resume looking for the next neighbor of inOrder[i] to try as inOrder[i + 1].
+    private final int[] next;
+    private long predicateCalls;
+    private long expanded;
+    // Set once we've been told to stop while about to call the adjacency function.
+    private boolean stopping;
+
+    private Solver(int n, int counted, PairTest adjacencyFn, boolean undirected,
+        BooleanSupplier stopped) {
+      this.n = n;
+      this.counted = counted;
+      this.stopped = stopped;
+      this.adjacencyFn = adjacencyFn;
+      this.undirected = undirected;
+      words = LargeBitGraph.wordsFor(n);
+      known = new long[n * words];
+      neighbors = new long[n * words];
+      inOrder = new int[n];
+      seen = new long[words];
+      next = new int[n];
+    }
+
+    /** Returns true if a cycle was found, in which case it is left in {@link #cycle()}. */
+    private boolean findHamiltonianCycle() {
+      // We only need traverse from the 0th node, since all Hamiltonian cycles will include it!
+      inOrder[0] = 0;
+      seen[0] |= 1L;
+      int length = 1;
+      int stepsUntilStopCheck = STEPS_BETWEEN_STOP_CHECKS;
+      while (true) {
+        if (--stepsUntilStopCheck == 0) {
+          stepsUntilStopCheck = STEPS_BETWEEN_STOP_CHECKS;
+          stopping |= stopped.getAsBoolean();
+        }
+        if (stopping) {
+          return false;
+        }
+        int adj = nextUnseenNeighbor(inOrder[length - 1], next[length - 1]);
+        if (adj < 0) {
+          // Every way of extending this path has failed, so step back.
+          if (length == 1) {
+            return false;
+          }
+          int last = inOrder[--length];
+          seen[last >>> 6] &= ~(1L << last);
+          continue;
+        }
+        next[length - 1] = adj + 1;
+        expanded++;
+        if (length + 1 == n) {
+          if (isAdjacent(0, adj)) {
+            inOrder[length] = adj;
+            return true;
+          }
+          continue;
+        }
+        inOrder[length++] = adj;
+        seen[adj >>> 6] |= 1L << adj;
+        next[length - 1] = 0;
+      }
+    }
+
+    /**
+     * Returns the lowest unseen neighbor of {@code v} that is at least {@code from}, or -1. Seen
+     * elements are skipped without asking the adjacency function about them.
+     */
+    private int nextUnseenNeighbor(int v, int from) {
+      for (int w = from >>> 6; w < words; w++) {
+        long bs = ~seen[w];
+        if (w == from >>> 6) {
+          bs &= -1L << from;
+        }
+        for (; bs != 0; bs &= bs - 1) {
+          int j = (w << 6) + Long.numberOfTrailingZeros(bs);
+          if (j >= n) {
+            return -1;
+          }
+          if (isAdjacent(v, j)) {
+            return j;
+          }
+          if (stopping) {
+            return -1;
+          }
+        }
+      }
+      return -1;
+    }
+
+    private boolean isAdjacent(int i, int j) {
+      int word = i * words + (j >>> 6);
+      long bit = 1L << j;
+      if ((known[word] & bit) == 0) {
+        if (stopped.getAsBoolean()) {
+          stopping = true;
+          return false; // Without remembering the answer, since it isn't one.
+        }
+        if (i < counted && j < counted) {
+          predicateCalls++;
+        }
+        boolean adjacent = adjacencyFn.test(i, j);
+        known[word] |= bit;
+        if (adjacent) {
+          neighbors[word] |= bit;
+        }
+        if (undirected) {
+          int mirror = j * words + (i >>> 6);
+          known[mirror] |= 1L << i;
+          if (adjacent) {
+            neighbors[mirror] |= 1L << i;
+          }
+        }
+      }
+      return (neighbors[word] & bit) != 0;
+    }
+
+    private int[] cycle() {
+      return inOrder;
+    }
+  }
+}
@@ -0,0 +1,73 @@
+package com.gradybward.hamiltonian;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+/** Tests that the LazyDFS reports the adjacency function calls it saves. */
+public class HamiltonianCycleLazyDFSTest {
+
+  @Test
+  public void savesCallsOnALoop() {
+    checkSavedCalls("100Loop");
+  }
+
+  @Test
+  public void savesCallsOnACompleteGraph() {
+    checkSavedCalls("Perfect10");
+  }
+
+  private static void checkSavedCalls(String graphName) {
+    int[][] adjacencyLists = graph(graphName);
+    long n = adjacencyLists.length;
+    long maxDegree = 0;
+    for (int[] neighbors : adjacencyLists) {
+      maxDegree = Math.max(maxDegree, neighbors.length);
+    }
+    for (boolean undirected : new boolean[] { false, true }) {
+      AtomicLong saved = new AtomicLong(-1);
+      AdjacencyBuild build = undirected ? AdjacencyBuild.everyOrderedPair().undirected()
+          : AdjacencyBuild.everyOrderedPair();
+      HamiltonianCycleResult<Integer> result = HamiltonianCycleSolver.LazyDFS(saved::set).solve(
+          elements(adjacencyLists.length), (a, b) -> isAdjacent(adjacencyLists, a, b), build,
+          CancellationToken.create());
+      String message = String.format("%s %s %s saved %s", graphName, undirected,
+          result.statistics(), saved);
+      assertTrue(message, result.status() == HamiltonianCycleResult.Status.FOUND);
+      // Every pair is either asked about, or saved, once (or once each way, if directed).
+      long eagerCalls = undirected ? n * (n - 1) / 2 : n * (n - 1);
+      assertTrue(message, saved.get() > 0);
+      assertTrue(message, result.statistics().predicateCalls() + saved.get() == eagerCalls);
+      // On these easy graphs, the search never asks about more than a few pairs per element.
+      assertTrue(message, result.statistics().predicateCalls() <= n * maxDegree);
+    }
+  }
+
+  private static int[][] graph(String name) {
+    for (Object[] graph : HamiltonianCycleTest.graphs()) {
+      if (graph[0].equals(name)) {
+        return (int[][]) graph[1];
+      }
+    }
+    throw new IllegalArgumentException(name);
+  }
+
+  private static boolean isAdjacent(int[][] adjacencyLists, int a, int b) {
+    for (int c : adjacencyLists[a]) {
+      if (c == b) return true;
+    }
+    return false;
+  }
+
+  private static List<Integer> elements(int n) {
+    List<Integer> result = new ArrayList<>();
+    for (int i = 0; i < n; i++) {
+      result.add(i);
+    }
+    return result;
+  }
+}
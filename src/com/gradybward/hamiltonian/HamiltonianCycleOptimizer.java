@@ -0,0 +1,380 @@
+package com.gradybward.hamiltonian;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BooleanSupplier;
+import java.util.function.ToDoubleBiFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Finds a cheapest Hamiltonian cycle of up to 64 elements, where {@code weights[i][j]} is the cost
+ * of stepping from element i to element j, and an infinite weight means there's no such step.
+ *
+ * <p>
+ * Weights need not be symmetric; a cycle is only ever followed in one direction, and costs what
+ * its steps in that direction add up to. The steps with finite weights make up a graph, which is
+ * run through the {@link ForcedEdgeReduction} (or, if the weights aren't symmetric, the
+ * {@link ForcedArcReduction}) first. They only delete steps that are in no cycle at all, so the
+ * cheapest cycle is still there.
+ *
+ * <p>
+ * Up to {@link #DP_MAX_ELEMENTS} elements, this is the Held-Karp subset dynamic program: for every
+ * subset S of the elements other than 0, and every v in S, the cheapest path from 0 through exactly
+ * S that ends at v. That takes O(2^N * N^2) time and 2^(N-1) * (N-1) doubles of memory, which is
+ * 80MB at 20 elements, and doubles with every element more.
+ *
+ * <p>
+ * Beyond that, it's a depth-first branch and bound. Paths grow from element 0, trying the cheapest
+ * steps first, so the first cycle found is a greedy one. After that, a path is abandoned as soon as
+ * its cost, plus a lower bound on the cost of finishing it, is no cheaper than the best cycle so
+ * far. The bound is the reduced-cost one: each element still to be left (the head of the path, and
+ * the unvisited elements) costs at least its cheapest step to an element that could follow it, and
+ * likewise each element still to be entered costs at least its cheapest step in, so the rest of the
+ * cycle costs at least the greater of the two sums. With symmetric weights, the rest of the cycle
+ * is also a spanning tree of the unvisited elements plus a step onto them from the head and a
+ * step off them back to 0, which bounds it (like a 1-tree) much more tightly; and since a cycle
+ * costs the same either way round, only the direction that leaves 0 for the smaller of its two
+ * neighbors on the cycle is searched. The {@link PathPruner} also cuts off paths that can't be
+ * finished at all. This is still exponential: on one core, random points in the plane take seconds
+ * at 25 to 30 elements, and a minute or two at 35.
+ *
+ * <p>
+ * Both give up soon after they're told to stop: the dynamic program with nothing to show for it,
+ * and the branch and bound with the cheapest cycle it has found so far.
+ */
+final class HamiltonianCycleOptimizer {
+
+  // At 21 elements, the table would take 160MB.
+  static final int DP_MAX_ELEMENTS = 20;
+  // How many subsets to fill in, or steps to take, between checks of whether we've been told to
+  // stop.
+  private static final int SUBSETS_BETWEEN_STOP_CHECKS = 1 << 16;
+  private static final int STEPS_BETWEEN_STOP_CHECKS = 1024;
+
+  private final BitGraph graph;
+  private final double[][] weights;
+  private final boolean symmetric;
+  private final int n;
+  private final BooleanSupplier stopped;
+  private final SearchStatistics stats;
+  // Scratch space for the spanning tree bound: each element's cheapest step onto the tree so far.
+  private final double[] distance;
+
+  private HamiltonianCycleOptimizer(BitGraph graph, double[][] weights, boolean symmetric,
+      BooleanSupplier stopped, SearchStatistics stats) {
+    this.graph = graph;
+    this.weights = weights;
+    this.symmetric = symmetric;
+    this.n = graph.size();
+    this.stopped = stopped;
+    this.stats = stats;
+    distance = new double[n];
+  }
+
+  /**
+   * A cheapest cycle through {@code elements}, with the weights given by calling {@code weightFn}
+   * on every ordered pair of distinct elements, one row at a time until {@code token} is cancelled.
+   * See {@link #cheapestCycle(double[][], CancellationToken)}.
+   */
+  static <T> HamiltonianCycleResult<T> cheapestCycle(List<T> elements,
+      ToDoubleBiFunction<T, T> weightFn, CancellationToken token) {
+    int n = elements.size();
+    SearchStatistics stats = new SearchStatistics();
+    long start = System.nanoTime();
+    double[][] weights = new double[n][n];
+    for (int i = 0; i < n && !token.isCancelled(); i++) {
+      for (int j = 0; j < n; j++) {
+        if (i != j) {
+          weights[i][j] = weightFn.applyAsDouble(elements.get(i), elements.get(j));
+        }
+      }
+      stats.addPredicateCalls(n - 1);
+    }
+    stats.addBuildNanos(System.nanoTime() - start);
+    Optional<int[]> cycle = token.isCancelled() ? Optional.empty()
+        : cheapestCycle(weights, token::isCancelled, stats);
+    return HamiltonianCycleResult.ofCheapest(elements, cycle, token, stats);
+  }
+
+  /**
+   * A cheapest cycle, starting from element 0, if there is any cycle; unless {@code token} is
+   * cancelled first, in which case the result is UNKNOWN, with the cheapest cycle found so far.
+   */
+  static HamiltonianCycleResult<Integer> cheapestCycle(double[][] weights,
+      CancellationToken token) {
+    SearchStatistics stats = new SearchStatistics();
+    Optional<int[]> cycle = cheapestCycle(weights, token::isCancelled, stats);
+    List<Integer> elements = new ArrayList<>(weights.length);
+    for (int i = 0; i < weights.length; i++) {
+      elements.add(i);
+    }
+    return HamiltonianCycleResult.ofCheapest(elements, cycle, token, stats);
+  }
+
+  private static Optional<int[]> cheapestCycle(double[][] weights, BooleanSupplier stopped,
+      SearchStatistics stats) {
+    int n = weights.length;
+    if (n > BitGraph.MAX_VERTICES) {
+      throw new IllegalArgumentException(String.format(
+          "Steps are recorded in a BitGraph. Sizes greater than %s are not supported.",
+          BitGraph.MAX_VERTICES));
+    }
+    // Check every row before reading any, since the symmetry check reads rows below the current.
+    for (int i = 0; i < n; i++) {
+      if (weights[i] == null || weights[i].length != n) {
+        throw new IllegalArgumentException(String.format(
+            "The weights must be a square matrix, but row %s has %s entries, not %s.", i,
+            weights[i] == null ? "no" : weights[i].length, n));
+      }
+    }
+    long[] neighbors = new long[n];
+    boolean symmetric = true;
+    for (int i = 0; i < n; i++) {
+      for (int j = 0; j < n; j++) {
+        double weight = weights[i][j];
+        if (Double.isNaN(weight) || weight == Double.NEGATIVE_INFINITY) {
+          throw new IllegalArgumentException(String.format(
+              "The weight from %s to %s is %s. Use positive infinity for a missing step.", i, j,
+              weight));
+        }
+        if (i != j && weight != Double.POSITIVE_INFINITY) {
+          neighbors[i] |= 1L << j;
+        }
+        symmetric &= i == j || Double.compare(weight, weights[j][i]) == 0;
+      }
+    }
+    if (BitGraph.isTooSmallForACycle(n)) {
+      return Optional.empty();
+    }
+    BitGraph graph = new BitGraph(neighbors);
+    long start = System.nanoTime();
+    Optional<BitGraph> reduced =
+        symmetric ? ForcedEdgeReduction.reduce(graph) : ForcedArcReduction.reduce(graph);
+    long reducedAt = System.nanoTime();
+    stats.addReductionNanos(reducedAt - start);
+    if (!reduced.isPresent()) {
+      return Optional.empty();
+    }
+    HamiltonianCycleOptimizer optimizer =
+        new HamiltonianCycleOptimizer(reduced.get(), weights, symmetric, stopped, stats);
+    Optional<int[]> cycle =
+        n <= DP_MAX_ELEMENTS ? optimizer.heldKarp() : optimizer.branchAndBound();
+    stats.addSearchNanos(System.nanoTime() - reducedAt);
+    return cycle;
+  }
+
+  private Optional<int[]> heldKarp() {
+    int m = n - 1;
+    // The elements other than 0, as bitstrings over 1..N-1 (bit v represents element v + 1).
+    int first = (int) (graph.neighbors(0) >>> 1);
+    int[] into = new int[m];
+    BitGraph reversed = graph.reversed();
+    for (int v = 0; v < m; v++) {
+      into[v] = (int) (reversed.neighbors(v + 1) >>> 1);
+    }
+    // cost[S * m + v] is the cheapest path from 0 through exactly S to v, for v in S.
+    double[] cost = new double[(1 << m) * m];
+    stats.pathStoreBytes(Double.BYTES * (long) cost.length);
+    Arrays.fill(cost, Double.POSITIVE_INFINITY);
+    for (int v = 0; v < m; v++) {
+      if ((first & (1 << v)) != 0) {
+        cost[(1 << v) * m + v] = weights[0][v + 1];
+      }
+    }
+    int complete = (1 << m) - 1;
+    for (int elements = 1; elements <= complete; elements++) {
+      if ((elements & (SUBSETS_BETWEEN_STOP_CHECKS - 1)) == 0 && stopped.getAsBoolean()) {
+        stats.addNodesExpanded(elements);
+        return Optional.empty();
+      }
+      if ((elements & (elements - 1)) == 0) {
+        continue; // Single elements were seeded above.
+      }
+      for (int rest = elements; rest != 0; rest &= rest - 1) {
+        int v = Integer.numberOfTrailingZeros(rest);
+        int without = elements ^ (1 << v);
+        double best = Double.POSITIVE_INFINITY;
+        for (int us = without & into[v]; us != 0; us &= us - 1) {
+          int u = Integer.numberOfTrailingZeros(us);
+          best = Math.min(best, cost[without * m + u] + weights[u + 1][v + 1]);
+        }
+        cost[elements * m + v] = best;
+      }
+    }
+    stats.addNodesExpanded(complete);
+    double best = Double.POSITIVE_INFINITY;
+    int last = -1;
+    for (int v = 0; v < m; v++) {
+      double total = cost[complete * m + v] + weights[v + 1][0];
+      if (graph.isAdjacent(v + 1, 0) && total < best) {
+        best = total;
+        last = v;
+      }
+    }
+    if (last < 0) {
+      return Optional.empty();
+    }
+    // Walk backwards from the best last element, each time finding the step the table took.
+    int[] result = new int[n];
+    int elements = complete;
+    int v = last;
+    for (int position = n - 1; position > 0; position--) {
+      result[position] = v + 1;
+      int without = elements ^ (1 << v);
+      for (int us = without & into[v]; us != 0; us &= us - 1) {
+        int u = Integer.numberOfTrailingZeros(us);
+        if (cost[without * m + u] + weights[u + 1][v + 1] == cost[elements * m + v]) {
+          v = u;
+          break;
+        }
+      }
+      elements = without;
+    }
+    return Optional.of(result);
+  }
+
+  private Optional<int[]> branchAndBound() {
+    // Every element's steps out and in, cheapest first.
+    BitGraph reversed = graph.reversed();
+    int[][] out = new int[n][];
+    int[][] in = new int[n][];
+    for (int v = 0; v < n; v++) {
+      int from = v;
+      out[v] = IntStream.of(elementsOf(graph.neighbors(v))).boxed()
+          .sorted(Comparator.comparingDouble(to -> weights[from][to]))
+          .mapToInt(Integer::intValue).toArray();
+      in[v] = IntStream.of(elementsOf(reversed.neighbors(v))).boxed()
+          .sorted(Comparator.comparingDouble(other -> weights[other][from]))
+          .mapToInt(Integer::intValue).toArray();
+    }
+    PathPruner pruner = new PathPruner(graph, !symmetric);
+    int[] inOrder = new int[n];
+    int[] best = null;
+    double bestCost = Double.POSITIVE_INFINITY;
+    // tried[i] is how many of inOrder[i]'s steps out have been tried as inOrder[i + 1].
+    int[] tried = new int[n];
+    double[] costTo = new double[n];
+    long seen = 1L;
+    int length = 1;
+    int stepsUntilStopCheck = STEPS_BETWEEN_STOP_CHECKS;
+    long expanded = 0;
+    while (length > 0) {
+      if (--stepsUntilStopCheck == 0) {
+        stepsUntilStopCheck = STEPS_BETWEEN_STOP_CHECKS;
+        if (stopped.getAsBoolean()) {
+          break; // With the cheapest cycle so far, which may not be the cheapest there is.
+        }
+      }
+      int head = inOrder[length - 1];
+      if (tried[length - 1] == out[head].length) {
+        // Every way of extending this path has been tried, so step back.
+        seen &= ~(1L << head);
+        length--;
+        continue;
+      }
+      int next = out[head][tried[length - 1]++];
+      if ((seen & (1L << next)) != 0) {
+        continue;
+      }
+      expanded++;
+      double cost = costTo[length - 1] + weights[head][next];
+      if (length + 1 == n) {
+        if (graph.isAdjacent(next, 0) && (!symmetric || next > inOrder[1])
+            && cost + weights[next][0] < bestCost) {
+          inOrder[length] = next;
+          best = inOrder.clone();
+          bestCost = cost + weights[next][0];
+        }
+        continue;
+      }
+      long extended = seen | (1L << next);
+      int second = length == 1 ? next : inOrder[1];
+      if (symmetric && (graph.neighbors(0) & ~extended & (-2L << second)) == 0) {
+        continue; // Only the other direction round could close this cycle.
+      }
+      if (cost + remainingCost(extended, next, out, in) >= bestCost
+          || !pruner.canComplete(extended, 0, next)) {
+        continue;
+      }
+      inOrder[length] = next;
+      costTo[length] = cost;
+      tried[length] = 0;
+      seen = extended;
+      length++;
+    }
+    stats.addNodesExpanded(expanded);
+    return Optional.ofNullable(best);
+  }
+
+  /**
+   * A lower bound on the cost of finishing a path from 0 to {@code head} through exactly
+   * {@code visited} into a cycle: the greater of the cheapest ways to leave every element that
+   * still has to be left, and to enter every element that still has to be entered. Infinite if
+   * some element can't be left or entered at all.
+   */
+  private double remainingCost(long visited, int head, int[][] out, int[][] in) {
+    long unvisited = graph.vertices() & ~visited;
+    long leftFor = unvisited | 1L;
+    long enteredFrom = unvisited | (1L << head);
+    double leaving = cheapestStep(head, out, leftFor, true);
+    double entering = cheapestStep(0, in, enteredFrom, false);
+    for (long bs = unvisited; bs != 0; bs &= bs - 1) {
+      int v = Long.numberOfTrailingZeros(bs);
+      leaving += cheapestStep(v, out, leftFor, true);
+      entering += cheapestStep(v, in, enteredFrom, false);
+    }
+    double result = Math.max(leaving, entering);
+    if (symmetric && result != Double.POSITIVE_INFINITY) {
+      result = Math.max(result, cheapestStep(head, out, unvisited, true)
+          + spanningTreeCost(unvisited) + cheapestStep(0, in, unvisited, false));
+    }
+    return result;
+  }
+
+  /** The cost of a minimum spanning tree of {@code elements}, by Prim's algorithm. */
+  private double spanningTreeCost(long elements) {
+    int root = Long.numberOfTrailingZeros(elements);
+    long outside = elements & ~(1L << root);
+    for (long bs = outside; bs != 0; bs &= bs - 1) {
+      int v = Long.numberOfTrailingZeros(bs);
+      distance[v] = weights[root][v];
+    }
+    double total = 0;
+    while (outside != 0) {
+      int closest = Long.numberOfTrailingZeros(outside);
+      for (long bs = outside & (outside - 1); bs != 0; bs &= bs - 1) {
+        int v = Long.numberOfTrailingZeros(bs);
+        if (distance[v] < distance[closest]) {
+          closest = v;
+        }
+      }
+      total += distance[closest];
+      outside &= ~(1L << closest);
+      for (long bs = outside; bs != 0; bs &= bs - 1) {
+        int v = Long.numberOfTrailingZeros(bs);
+        distance[v] = Math.min(distance[v], weights[closest][v]);
+      }
+    }
+    return total;
+  }
+
+  private double cheapestStep(int v, int[][] steps, long allowed, boolean outwards) {
+    for (int other : steps[v]) {
+      if ((allowed & (1L << other)) != 0) {
+        return outwards ? weights[v][other] : weights[other][v];
+      }
+    }
+    return Double.POSITIVE_INFINITY;
+  }
+
+  private static int[] elementsOf(long bs) {
+    int[] result = new int[Long.bitCount(bs)];
+    for (int i = 0; bs != 0; bs &= bs - 1) {
+      result[i++] = Long.numberOfTrailingZeros(bs);
+    }
+    return result;
+  }
+}
@@ -0,0 +1,169 @@
+package com.gradybward.hamiltonian;
+
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import org.junit.Test;
+
+/** Tests the optimizer on weights whose cheapest cycles are known. */
+public class HamiltonianCycleOptimizerTest {
+
+  // Following i -> i + 1 costs 14, and is the only cycle that cheap; back the other way, it's 43.
+  private static final double[][] ASYMMETRIC = new double[][] { { 0, 3, 9, 7, 4, 8 },
+      { 6, 0, 2, 9, 8, 5 }, { 8, 7, 0, 1, 9, 6 }, { 2, 9, 8, 0, 3, 7 }, { 9, 6, 7, 8, 0, 2 },
+      { 3, 8, 4, 9, 6, 0 } };
+
+  @Test
+  public void findsTheCheapestDirectionOfAnAsymmetricCycle() {
+    Optional<int[]> cycle = HamiltonianCycleSolver.findCheapestHamiltonianCycle(ASYMMETRIC);
+    assertTrue(cycle.map(Arrays::toString).toString(),
+        Arrays.equals(cycle.get(), new int[] { 0, 1, 2, 3, 4, 5 }));
+  }
+
+  @Test
+  public void avoidsAnInfiniteStep() {
+    double[][] weights = new double[ASYMMETRIC.length][];
+    for (int i = 0; i < weights.length; i++) {
+      weights[i] = ASYMMETRIC[i].clone();
+    }
+    weights[2][3] = Double.POSITIVE_INFINITY;
+    // Three cycles tie at 27, the cheapest without the step from 2 to 3.
+    int[] cycle = HamiltonianCycleSolver.findCheapestHamiltonianCycle(weights).get();
+    assertTrue(Arrays.toString(cycle), cost(weights, cycle) == 27);
+  }
+
+  @Test
+  public void findsNoCycleWhenEveryOneNeedsAnInfiniteStep() {
+    double[][] weights = new double[ASYMMETRIC.length][];
+    for (int i = 0; i < weights.length; i++) {
+      weights[i] = ASYMMETRIC[i].clone();
+      if (i != 1) {
+        weights[i][0] = Double.POSITIVE_INFINITY;
+        weights[i][2] = Double.POSITIVE_INFINITY;
+      }
+    }
+    // Elements 0 and 2 can only be entered from 1, which can't be followed by both.
+    assertTrue(!HamiltonianCycleSolver.findCheapestHamiltonianCycle(weights).isPresent());
+  }
+
+  @Test
+  public void followsTheRimOfAConvexPolygon() {
+    // The corners of a regular 24-gon, in a scrambled order; the cheapest cycle is its perimeter.
+    int n = 24;
+    List<Integer> corners = new ArrayList<>();
+    for (int i = 0; i < n; i++) {
+      corners.add(i);
+    }
+    Collections.shuffle(corners, new Random(3));
+    double[][] weights = new double[n][n];
+    for (int i = 0; i < n; i++) {
+      for (int j = 0; j < n; j++) {
+        double a = 2 * Math.PI * corners.get(i) / n;
+        double b = 2 * Math.PI * corners.get(j) / n;
+        weights[i][j] = Math.hypot(Math.cos(a) - Math.cos(b), Math.sin(a) - Math.sin(b));
+      }
+    }
+    int[] cycle = HamiltonianCycleSolver.findCheapestHamiltonianCycle(weights).get();
+    assertTrue(Arrays.toString(cycle),
+        Math.abs(cost(weights, cycle) - 2 * n * Math.sin(Math.PI / n)) < 1e-9);
+    for (int i = 0; i < n; i++) {
+      int step = corners.get(cycle[(i + 1) % n]) - corners.get(cycle[i]);
+      assertTrue(Arrays.toString(cycle),
+          Math.floorMod(step, n) == 1 || Math.floorMod(step, n) == n - 1);
+    }
+  }
+
+  @Test
+  public void crossesAnOddGridOnce() {
+    // A 5x5 grid of unit squares has an odd number of points, so a cycle can't stick to unit
+    // steps: the cheapest takes 24 of them and one diagonal.
+    int side = 5;
+    int n = side * side;
+    double[][] weights = new double[n][n];
+    for (int i = 0; i < n; i++) {
+      for (int j = 0; j < n; j++) {
+        weights[i][j] = Math.hypot(i / side - j / side, i % side - j % side);
+      }
+    }
+    int[] cycle = HamiltonianCycleSolver.findCheapestHamiltonianCycle(weights).get();
+    assertTrue(Arrays.toString(cycle),
+        Math.abs(cost(weights, cycle) - (n - 1 + Math.sqrt(2))) < 1e-9);
+  }
+
+  @Test
+  public void reportsHowMuchWorkItDid() {
+    HamiltonianCycleResult<Integer> result = HamiltonianCycleSolver
+        .findCheapestHamiltonianCycle(ASYMMETRIC, CancellationToken.create());
+    assertTrue(result.toString(), result.status() == HamiltonianCycleResult.Status.FOUND);
+    assertTrue(result.toString(),
+        Arrays.equals(result.cycleIndexes().get(), new int[] { 0, 1, 2, 3, 4, 5 }));
+    assertTrue(result.toString(), result.statistics().nodesExpanded() > 0);
+  }
+
+  @Test
+  public void givesUpOnTheSubsetTableWhenCancelled() {
+    CancellationToken token = CancellationToken.create();
+    token.cancel();
+    HamiltonianCycleResult<Integer> result =
+        HamiltonianCycleSolver.findCheapestHamiltonianCycle(randomPoints(20), token);
+    assertTrue(result.toString(), result.status() == HamiltonianCycleResult.Status.UNKNOWN);
+  }
+
+  @Test
+  public void givesUpOnTheBranchAndBoundWithTheCheapestCycleSoFar() {
+    // Branch and bound on 40 scattered points would take far longer than the timeout.
+    double[][] weights = randomPoints(40);
+    long start = System.nanoTime();
+    CancellationToken token = CancellationToken.withTimeout(Duration.ofMillis(50));
+    HamiltonianCycleResult<Integer> result =
+        HamiltonianCycleSolver.findCheapestHamiltonianCycle(weights, token);
+    Duration took = Duration.ofNanos(System.nanoTime() - start);
+    String message = String.format("%s after %s", result, took);
+    assertTrue(message, result.status() == HamiltonianCycleResult.Status.UNKNOWN);
+    assertTrue(message, took.compareTo(Duration.ofSeconds(1)) < 0);
+    result.cycleIndexes().ifPresent(cycle -> cost(weights, cycle));
+  }
+
+  /** The distances between {@code n} points scattered over the unit square. */
+  private static double[][] randomPoints(int n) {
+    Random random = new Random(n);
+    double[] xs = random.doubles(n).toArray();
+    double[] ys = random.doubles(n).toArray();
+    double[][] weights = new double[n][n];
+    for (int i = 0; i < n; i++) {
+      for (int j = 0; j < n; j++) {
+        weights[i][j] = Math.hypot(xs[i] - xs[j], ys[i] - ys[j]);
+      }
+    }
+    return weights;
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsARaggedMatrix() {
+    HamiltonianCycleSolver.findCheapestHamiltonianCycle(
+        new double[][] { { 0, 1, 1 }, { 1, 0, 1 }, {} });
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsAMissingRow() {
+    HamiltonianCycleSolver.findCheapestHamiltonianCycle(
+        new double[][] { { 0, 1, 1 }, { 1, 0, 1 }, null });
+  }
+
+  private static double cost(double[][] weights, int[] cycle) {
+    assertTrue(Arrays.toString(cycle), cycle.length == weights.length
+        && Arrays.stream(cycle).distinct().count() == cycle.length);
+    double result = 0;
+    for (int i = 0; i < cycle.length; i++) {
+      result += weights[cycle[i]][cycle[(i + 1) % cycle.length]];
+    }
+    return result;
+  }
+}
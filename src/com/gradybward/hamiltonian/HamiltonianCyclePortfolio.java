@@ -0,0 +1,187 @@
+package com.gradybward.hamiltonian;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Races several backing algorithms against each other on the same graph, and returns whichever
+ * answers first.
+ *
+ * <p>
+ * Which engine is fastest depends on the shape of the graph, often by orders of magnitude, and is
+ * hard to predict (see {@link SolverCostModel}). Rather than guess, this builds the graph once
+ * (running {@link LargeForcedEdgeReduction} on it), hands the same graph to every engine on its
+ * own thread, and takes the first answer. The others are told to stop, and give up within
+ * milliseconds. Engines only read the graph, so sharing it is safe. They also share one
+ * {@link SearchStatistics}, so the statistics count the losers' work alongside the winner's.
+ *
+ * <p>
+ * An engine that can't handle the graph (or fails on it, say by running out of memory) drops out
+ * of the race; only if every engine does is its exception thrown. Unless told otherwise, the race
+ * is between the BFS, DFS and LargeDFS for graphs of up to 64 elements (plus the DP, up to
+ * {@link #DEFAULT_DP_MAX_ELEMENTS}), and the LargeBFS and LargeDFS beyond that. The BFS and DP
+ * engines are left out when the {@link SolverCostModel} expects them to run out of memory.
+ *
+ * <p>
+ * Paths are raced the same way, on the graph without the path's extra vertex: the BFS and DFS
+ * search for them directly, and the others each look for a cycle through the extra vertex (see
+ * {@link PathToCycleReduction}).
+ */
+final class HamiltonianCyclePortfolio extends LargeBitGraphSolver {
+
+  // The DP's table is 2^(N-1) ints, which is too much to spend on an engine that may not win.
+  static final int DEFAULT_DP_MAX_ELEMENTS = 25;
+
+  /** Runs every engine on a new daemon thread of its own. */
+  static final Executor THREAD_PER_ENGINE = engine -> {
+    Thread thread = new Thread(engine, "hamiltonian-portfolio");
+    thread.setDaemon(true);
+    thread.start();
+  };
+
+  private final Executor executor;
+  // Empty for the default engines, chosen per graph.
+  private final List<HamiltonianCycleSolver> engines;
+
+  HamiltonianCyclePortfolio(Executor executor, List<HamiltonianCycleSolver> engines) {
+    for (HamiltonianCycleSolver engine : engines) {
+      if (!(engine instanceof BitGraphSolver) && !(engine instanceof LargeBitGraphSolver)) {
+        throw new IllegalArgumentException(
+            String.format("%s can't share a prebuilt graph, so it can't be raced.", engine));
+      }
+      if (engine instanceof BitGraphSolver && ((BitGraphSolver) engine).isDirected()) {
+        throw new IllegalArgumentException(String.format(
+            "%s follows arcs, so it can't share an undirected graph's reduction.", engine));
+      }
+    }
+    this.executor = executor;
+    this.engines = engines;
+  }
+
+  @Override
+  Optional<int[]> solve(LargeBitGraph graph, BooleanSupplier stopped, SearchStatistics stats) {
+    return race(graph, stopped, (engine, small, lost) -> run(engine, graph, small, lost, stats));
+  }
+
+  @Override
+  Optional<int[]> solvePath(LargeBitGraph graph, int start, int end, BooleanSupplier stopped,
+      SearchStatistics stats) {
+    return race(graph, stopped,
+        (engine, small, lost) -> runPath(engine, graph, small, start, end, lost, stats));
+  }
+
+  /** What one engine does in a race, giving up once {@code lost}. */
+  private interface Leg {
+    Optional<int[]> run(HamiltonianCycleSolver engine, BitGraph small, BooleanSupplier lost);
+  }
+
+  private Optional<int[]> race(LargeBitGraph graph, BooleanSupplier stopped, Leg leg) {
+    BitGraph small = graph.size() <= BitGraph.MAX_VERTICES ? graph.toBitGraph() : null;
+    List<HamiltonianCycleSolver> racing = engines.isEmpty() ? defaultEngines(graph) : engines;
+    CompletableFuture<Optional<int[]>> winner = new CompletableFuture<>();
+    BooleanSupplier lost = () -> winner.isDone() || stopped.getAsBoolean();
+    AtomicInteger running = new AtomicInteger(racing.size());
+    AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+    for (HamiltonianCycleSolver engine : racing) {
+      BitGraph smallGraph = small;
+      Runnable race = () -> {
+        try {
+          if (!lost.getAsBoolean()) {
+            // An engine that was told to stop returns empty, but by then there's already a winner,
+            // so completing again does nothing.
+            winner.complete(leg.run(engine, smallGraph, lost));
+          }
+        } catch (Throwable t) { // Even an Error, or nobody would ever complete the race.
+          firstFailure.compareAndSet(null, t);
+          if (running.decrementAndGet() == 0) {
+            winner.completeExceptionally(firstFailure.get());
+          }
+          return;
+        }
+        if (running.decrementAndGet() == 0) {
+          winner.complete(Optional.empty()); // Only reached if every engine was stopped.
+        }
+      };
+      executor.execute(race);
+    }
+    try {
+      return winner.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      if (e.getCause() instanceof Error) {
+        throw (Error) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  private static Optional<int[]> run(HamiltonianCycleSolver engine, LargeBitGraph graph,
+      BitGraph small, BooleanSupplier stopped, SearchStatistics stats) {
+    if (engine instanceof LargeBitGraphSolver) {
+      LargeBitGraphSolver large = (LargeBitGraphSolver) engine;
+      large.checkSize(graph.size());
+      return large.solve(graph, stopped, stats);
+    }
+    if (small == null) {
+      throw new IllegalArgumentException(String.format(
+          "%s needs a BitGraph, so sizes greater than %s are not supported.", engine,
+          BitGraph.MAX_VERTICES));
+    }
+    return ((BitGraphSolver) engine).solve(small, stopped, stats);
+  }
+
+  /**
+   * Like {@link #run}, for a path. The BFS and DFS search for it directly, and the rest look for a
+   * cycle through an extra vertex, so they need room for one vertex more.
+   */
+  private static Optional<int[]> runPath(HamiltonianCycleSolver engine, LargeBitGraph graph,
+      BitGraph small, int start, int end, BooleanSupplier stopped, SearchStatistics stats) {
+    if (engine instanceof LargeBitGraphSolver) {
+      LargeBitGraphSolver large = (LargeBitGraphSolver) engine;
+      large.checkSize(graph.size() + 1);
+      return large.solvePath(graph, start, end, stopped, stats);
+    }
+    if (small == null) {
+      throw new IllegalArgumentException(String.format(
+          "%s needs a BitGraph, so sizes greater than %s are not supported.", engine,
+          BitGraph.MAX_VERTICES));
+    }
+    return ((BitGraphSolver) engine).findHamiltonianPath(small, start, end, stopped, stats);
+  }
+
+  private static List<HamiltonianCycleSolver> defaultEngines(LargeBitGraph graph) {
+    int n = graph.size();
+    int[] degrees = new int[n];
+    for (int v = 0; v < n; v++) {
+      degrees[v] = graph.degree(v);
+    }
+    SolverCostModel model = SolverCostModel.defaults();
+    boolean bfsFits = model.bfsFits(degrees);
+    List<HamiltonianCycleSolver> result = new ArrayList<>();
+    if (n <= BitGraph.MAX_VERTICES) {
+      result.add(new HamiltonianCycleDFS());
+      result.add(new HamiltonianCycleLargeDFS());
+      if (bfsFits) {
+        result.add(new HamiltonianCycleBFS());
+      }
+      if (n <= DEFAULT_DP_MAX_ELEMENTS && model.dpFits(n)) {
+        result.add(new HamiltonianCycleDP());
+      }
+    } else {
+      result.add(new HamiltonianCycleLargeDFS());
+      if (bfsFits && n <= HamiltonianCycleLargeBFS.MAX_ELEMENTS) {
+        result.add(new HamiltonianCycleLargeBFS());
+      }
+    }
+    return result;
+  }
+}
@@ -0,0 +1,100 @@
+package com.gradybward.hamiltonian;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The outcome of a solve that may have been cancelled: a cycle, a proof that there isn't one, or
+ * neither. Either way, it says how much work the solve did; see {@link #statistics()}.
+ */
+public final class HamiltonianCycleResult<T> {
+
+  public enum Status {
+    /** The solver found a cycle, which is in {@link HamiltonianCycleResult#cycle()}. */
+    FOUND,
+    /** The solver finished, and proved that there is no cycle. */
+    NO_CYCLE,
+    /**
+     * The solver was cancelled before it could tell either way. A cancelled search for a cheapest
+     * cycle may still hold the cheapest it found so far.
+     */
+    UNKNOWN
+  }
+
+  private final Status status;
+  private final int[] cycleIndexes;
+  private final List<T> cycle;
+  private final SolverStatistics statistics;
+
+  private HamiltonianCycleResult(Status status, int[] cycleIndexes, List<T> cycle,
+      SolverStatistics statistics) {
+    this.status = status;
+    this.cycleIndexes = cycleIndexes;
+    this.cycle = cycle;
+    this.statistics = statistics;
+  }
+
+  /**
+   * The result of a solve over {@code elements} that returned {@code idxes}, having done the work
+   * in {@code stats}. A solve that found no cycle only proved there isn't one if it wasn't
+   * cancelled, since cancelled solvers stop early.
+   */
+  static <T> HamiltonianCycleResult<T> of(List<T> elements, Optional<int[]> idxes,
+      CancellationToken token, SearchStatistics stats) {
+    SolverStatistics statistics = stats.snapshot();
+    if (idxes.isPresent()) {
+      List<T> cycle = new ArrayList<>();
+      for (int i : idxes.get()) {
+        cycle.add(elements.get(i));
+      }
+      return new HamiltonianCycleResult<>(Status.FOUND, idxes.get().clone(),
+          Collections.unmodifiableList(cycle), statistics);
+    }
+    return new HamiltonianCycleResult<>(token.isCancelled() ? Status.UNKNOWN : Status.NO_CYCLE,
+        null, null, statistics);
+  }
+
+  /**
+   * Like {@link #of}, for a search for a cheapest cycle, which returned {@code idxes}: the
+   * cheapest cycle, or if it was cancelled, the cheapest it found before it gave up. So the cycle
+   * is kept even if the status is UNKNOWN.
+   */
+  static <T> HamiltonianCycleResult<T> ofCheapest(List<T> elements, Optional<int[]> idxes,
+      CancellationToken token, SearchStatistics stats) {
+    HamiltonianCycleResult<T> result = of(elements, idxes, token, stats);
+    if (!token.isCancelled()) {
+      return result;
+    }
+    return new HamiltonianCycleResult<>(Status.UNKNOWN, result.cycleIndexes, result.cycle,
+        result.statistics);
+  }
+
+  public Status status() {
+    return status;
+  }
+
+  /**
+   * The cycle's elements in order, if one was found. That's always so when the status is
+   * {@link Status#FOUND}, and never when it's {@link Status#NO_CYCLE}.
+   */
+  public Optional<List<T>> cycle() {
+    return Optional.ofNullable(cycle);
+  }
+
+  /** The indexes (into the solved list) of the cycle's elements in order, if one was found. */
+  public Optional<int[]> cycleIndexes() {
+    return cycleIndexes == null ? Optional.empty() : Optional.of(cycleIndexes.clone());
+  }
+
+  /** How much work the solve did, whatever its outcome. */
+  public SolverStatistics statistics() {
+    return statistics;
+  }
+
+  @Override
+  public String toString() {
+    return cycle == null ? status.toString() : status + " " + cycle;
+  }
+}
@@ -1,8 +1,20 @@
 package com.gradybward.hamiltonian;
 
+import java.math.BigInteger;
+import java.util.BitSet;
 import java.util.List;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.BiPredicate;
+import java.util.function.LongConsumer;
+import java.util.function.ToDoubleBiFunction;
+import java.util.stream.Stream;
 
 /**
  * An algorithm to find a hamiltonian cycle within a graph, if such a cycle exists.
@@ -13,17 +25,363 @@ import java.util.function.BiPredicate;
  * problem, but one that is tractable at small N.
  * 
  * <p>
- * Backing algorithms of this interface must be at most 63 elements large.
+ * Backing algorithms of this interface must be at most 64 elements large (31 for the DP), except
+ * for the large variants, which are slower but accept more elements (the LargeDFS, any number).
  */
 public interface HamiltonianCycleSolver {
 
-  <T> Optional<List<T>> findHamiltonianCycle(List<T> elements, BiPredicate<T, T> adjacencyFn);
+  /**
+   * Finds a cycle, building the graph by calling {@code adjacencyFn} on every ordered pair of
+   * distinct elements.
+   */
+  default <T> Optional<List<T>> findHamiltonianCycle(List<T> elements,
+      BiPredicate<T, T> adjacencyFn) {
+    return findHamiltonianCycle(elements, adjacencyFn, AdjacencyBuild.everyOrderedPair());
+  }
+
+  /**
+   * Finds a cycle, building the graph as {@code build} says to. Use this to halve or parallelize
+   * the calls to an expensive {@code adjacencyFn}.
+   */
+  default <T> Optional<List<T>> findHamiltonianCycle(List<T> elements,
+      BiPredicate<T, T> adjacencyFn, AdjacencyBuild build) {
+    return solve(elements, adjacencyFn, build, CancellationToken.create()).cycle();
+  }
+
+  /**
+   * Finds a cycle, or proves there isn't one, unless {@code token} is cancelled first, in which
+   * case the result is {@link HamiltonianCycleResult.Status#UNKNOWN}. Both building the graph and
+   * searching it stop soon after the token is cancelled. The result also says how much work the
+   * solve did, whatever its outcome.
+   */
+  default <T> HamiltonianCycleResult<T> solve(List<T> elements, BiPredicate<T, T> adjacencyFn,
+      CancellationToken token) {
+    return solve(elements, adjacencyFn, AdjacencyBuild.everyOrderedPair(), token);
+  }
+
+  /** Like {@link #solve(List, BiPredicate, CancellationToken)}, building the graph as told. */
+  <T> HamiltonianCycleResult<T> solve(List<T> elements, BiPredicate<T, T> adjacencyFn,
+      AdjacencyBuild build, CancellationToken token);
+
+  /**
+   * Finds a cycle on the executor. The returned future is wired to the search: once it completes
+   * by any other means than the search finishing (most usefully {@code future.cancel(true)}, but
+   * also, say, {@code orTimeout(...)}), the search stops within milliseconds and frees its thread.
+   */
+  default <T> CompletableFuture<Optional<List<T>>> findHamiltonianCycleAsync(List<T> elements,
+      BiPredicate<T, T> adjacencyFn, Executor executor) {
+    return findHamiltonianCycleAsync(elements, adjacencyFn, AdjacencyBuild.everyOrderedPair(),
+        executor);
+  }
+
+  /** Like {@link #findHamiltonianCycleAsync(List, BiPredicate, Executor)}, building as told. */
+  default <T> CompletableFuture<Optional<List<T>>> findHamiltonianCycleAsync(List<T> elements,
+      BiPredicate<T, T> adjacencyFn, AdjacencyBuild build, Executor executor) {
+    CancellationToken token = CancellationToken.create();
+    CompletableFuture<Optional<List<T>>> future = new CompletableFuture<>();
+    // Nobody can be waiting on a search whose future is done, so stop it.
+    future.whenComplete((cycle, failure) -> token.cancel());
+    executor.execute(() -> {
+      if (future.isDone()) {
+        return; // Cancelled while queued, so don't even build the graph.
+      }
+      try {
+        // A cancelled search's result is UNKNOWN, but then the future is done and this is ignored.
+        future.complete(solve(elements, adjacencyFn, build, token).cycle());
+      } catch (Throwable t) {
+        future.completeExceptionally(t);
+      }
+    });
+    return future;
+  }
+
+  /**
+   * Finds a cycle in the graph where vertex i's neighbors are the entries of
+   * {@code adjacencyLists[i]}, and returns its vertices in cycle order. Self-loops are ignored.
+   */
+  Optional<int[]> findHamiltonianCycle(int[][] adjacencyLists);
+
+  /**
+   * Finds a cycle in the graph of at most 64 vertices where vertex i's neighbors are the set bits
+   * of {@code neighbors[i]}, and returns its vertices in cycle order. Self-loops are ignored.
+   */
+  Optional<int[]> findHamiltonianCycle(long[] neighbors);
+
+  /**
+   * Finds a cycle in the graph where vertex i's neighbors are the set bits of
+   * {@code neighbors[i]}, and returns its vertices in cycle order. Self-loops are ignored.
+   */
+  Optional<int[]> findHamiltonianCycle(BitSet[] neighbors);
+
+  /**
+   * Finds a Hamiltonian path: one that visits every element exactly once, but need not return to
+   * where it started. Builds the graph by calling {@code adjacencyFn} on every ordered pair of
+   * distinct elements. The undirected BFS and DFS search for paths directly; the other solvers find
+   * a cycle through one extra element joined to all the others, and so find paths in graphs of one
+   * element fewer than they find cycles in.
+   */
+  default <T> Optional<List<T>> findHamiltonianPath(List<T> elements,
+      BiPredicate<T, T> adjacencyFn) {
+    return solvePath(elements, adjacencyFn, CancellationToken.create()).cycle();
+  }
+
+  /**
+   * Like {@link #findHamiltonianPath(List, BiPredicate)}, but only finds paths that run from
+   * {@code start} to {@code end}, which must be distinct elements of the list.
+   */
+  default <T> Optional<List<T>> findHamiltonianPath(List<T> elements,
+      BiPredicate<T, T> adjacencyFn, T start, T end) {
+    return solvePath(elements, adjacencyFn, start, end, CancellationToken.create()).cycle();
+  }
+
+  /**
+   * Like {@link #findHamiltonianPath(List, BiPredicate)}, in the graph where vertex i's neighbors
+   * are the entries of {@code adjacencyLists[i]}, returning the path's vertices in order.
+   */
+  Optional<int[]> findHamiltonianPath(int[][] adjacencyLists);
+
+  /** Like {@link #findHamiltonianPath(int[][])}, for paths from {@code start} to {@code end}. */
+  Optional<int[]> findHamiltonianPath(int[][] adjacencyLists, int start, int end);
+
+  /**
+   * The {@link #solve(List, BiPredicate, CancellationToken)} of paths: finds one, or proves there
+   * isn't one, unless {@code token} is cancelled first. The result's cycle is the path, and
+   * {@link HamiltonianCycleResult.Status#NO_CYCLE} means there is no path.
+   */
+  default <T> HamiltonianCycleResult<T> solvePath(List<T> elements,
+      BiPredicate<T, T> adjacencyFn, CancellationToken token) {
+    return solvePath(elements, adjacencyFn, AdjacencyBuild.everyOrderedPair(), token);
+  }
+
+  /** Like {@link #solvePath(List, BiPredicate, CancellationToken)}, building the graph as told. */
+  <T> HamiltonianCycleResult<T> solvePath(List<T> elements, BiPredicate<T, T> adjacencyFn,
+      AdjacencyBuild build, CancellationToken token);
+
+  /**
+   * Like {@link #solvePath(List, BiPredicate, CancellationToken)}, but only finds paths that run
+   * from {@code start} to {@code end}, which must be distinct elements of the list.
+   */
+  default <T> HamiltonianCycleResult<T> solvePath(List<T> elements,
+      BiPredicate<T, T> adjacencyFn, T start, T end, CancellationToken token) {
+    return solvePath(elements, adjacencyFn, start, end, AdjacencyBuild.everyOrderedPair(), token);
+  }
+
+  /**
+   * Like {@link #solvePath(List, BiPredicate, Object, Object, CancellationToken)}, building the
+   * graph as told.
+   */
+  <T> HamiltonianCycleResult<T> solvePath(List<T> elements, BiPredicate<T, T> adjacencyFn,
+      T start, T end, AdjacencyBuild build, CancellationToken token);
+
+  /**
+   * Lists every Hamiltonian cycle of the undirected graph where vertex i's neighbors are the
+   * entries of {@code adjacencyLists[i]}, each once (starting from vertex 0, in only one of its two
+   * directions). The cycles are found as the stream is consumed, so however many there are, only
+   * O(N) memory is used, and closing or abandoning the stream stops the search. At most 64
+   * vertices.
+   */
+  public static Stream<int[]> enumerateHamiltonianCycles(int[][] adjacencyLists) {
+    return HamiltonianCycleEnumerator.cycles(LargeBitGraph.of(adjacencyLists).toBitGraph());
+  }
+
+  /**
+   * Like {@link #enumerateHamiltonianCycles(int[][])}, for the graph built by calling
+   * {@code adjacencyFn} on every ordered pair of distinct elements (up front, before the first
+   * cycle is found).
+   */
+  public static <T> Stream<List<T>> enumerateHamiltonianCycles(List<T> elements,
+      BiPredicate<T, T> adjacencyFn) {
+    BitGraph graph = BitGraph.of(elements, adjacencyFn, AdjacencyBuild.everyOrderedPair(),
+        () -> false, SearchStatistics.discarded());
+    return HamiltonianCycleEnumerator.cycles(graph).map(idxes -> {
+      List<T> cycle = new ArrayList<>(idxes.length);
+      for (int i : idxes) {
+        cycle.add(elements.get(i));
+      }
+      return cycle;
+    });
+  }
+
+  /**
+   * Counts the Hamiltonian cycles of the undirected graph where vertex i's neighbors are the
+   * entries of {@code adjacencyLists[i]}, each once, without listing them. Takes O(N) memory but
+   * O(2^N * N * E) time, so while up to 63 vertices are accepted, about 30 is the practical limit
+   * (given a pool with a few cores to spread the work over).
+   */
+  public static BigInteger countHamiltonianCycles(int[][] adjacencyLists) {
+    return HamiltonianCycleCounter.count(LargeBitGraph.of(adjacencyLists).toBitGraph(), null);
+  }
+
+  /** Like {@link #countHamiltonianCycles(int[][])}, summing ranges of subsets on the pool. */
+  public static BigInteger countHamiltonianCycles(int[][] adjacencyLists, ForkJoinPool pool) {
+    return HamiltonianCycleCounter.count(LargeBitGraph.of(adjacencyLists).toBitGraph(),
+        Objects.requireNonNull(pool));
+  }
+
+  /**
+   * Like {@link #countHamiltonianCycles(int[][])}, modulo an odd {@code modulus} (say, a prime)
+   * below 2^62. Saves working out the exact count, which for dense graphs takes several passes.
+   */
+  public static long countHamiltonianCycles(int[][] adjacencyLists, long modulus) {
+    return HamiltonianCycleCounter.count(LargeBitGraph.of(adjacencyLists).toBitGraph(), modulus,
+        null);
+  }
+
+  /** Like {@link #countHamiltonianCycles(int[][], long)}, summing ranges of subsets on the pool. */
+  public static long countHamiltonianCycles(int[][] adjacencyLists, long modulus,
+      ForkJoinPool pool) {
+    return HamiltonianCycleCounter.count(LargeBitGraph.of(adjacencyLists).toBitGraph(), modulus,
+        Objects.requireNonNull(pool));
+  }
+
+  /**
+   * Finds a cheapest Hamiltonian cycle, where {@code weights[i][j]} is the cost of stepping from
+   * vertex i to vertex j, or positive infinity if there's no such step. Weights need not be
+   * symmetric, or positive. Returns the cycle's vertices in order, starting from vertex 0, if there
+   * is any cycle. Up to 20 vertices, this takes O(2^N * N^2) time whatever the weights; beyond
+   * that, up to 64, it's a branch and bound, which is exponential, so about 30 vertices is the
+   * practical limit for dense graphs. To bound the time it takes, pass a token; see
+   * {@link #findCheapestHamiltonianCycle(double[][], CancellationToken)}.
+   */
+  public static Optional<int[]> findCheapestHamiltonianCycle(double[][] weights) {
+    return HamiltonianCycleOptimizer.cheapestCycle(weights, CancellationToken.create())
+        .cycleIndexes();
+  }
+
+  /**
+   * Like {@link #findCheapestHamiltonianCycle(double[][])}, but gives up soon after {@code token}
+   * is cancelled. The result is {@link HamiltonianCycleResult.Status#FOUND} with a cheapest cycle,
+   * or {@link HamiltonianCycleResult.Status#NO_CYCLE}, unless the search gave up, in which case
+   * it's {@link HamiltonianCycleResult.Status#UNKNOWN}. Past 20 vertices, an UNKNOWN result still
+   * holds the cheapest cycle found so far, if there was one. The cycle's elements are the vertex
+   * indexes.
+   */
+  public static HamiltonianCycleResult<Integer> findCheapestHamiltonianCycle(double[][] weights,
+      CancellationToken token) {
+    return HamiltonianCycleOptimizer.cheapestCycle(weights, token);
+  }
+
+  /**
+   * Like {@link #findCheapestHamiltonianCycle(double[][])}, with the weights given by calling
+   * {@code weightFn} on every ordered pair of distinct elements.
+   */
+  public static <T> Optional<List<T>> findCheapestHamiltonianCycle(List<T> elements,
+      ToDoubleBiFunction<T, T> weightFn) {
+    return HamiltonianCycleOptimizer.cheapestCycle(elements, weightFn, CancellationToken.create())
+        .cycle();
+  }
+
+  /**
+   * Like {@link #findCheapestHamiltonianCycle(double[][], CancellationToken)}, with the weights
+   * given by calling {@code weightFn} on every ordered pair of distinct elements. Computing the
+   * weights stops soon after the token is cancelled, too.
+   */
+  public static <T> HamiltonianCycleResult<T> findCheapestHamiltonianCycle(List<T> elements,
+      ToDoubleBiFunction<T, T> weightFn, CancellationToken token) {
+    return HamiltonianCycleOptimizer.cheapestCycle(elements, weightFn, token);
+  }
+
+  /**
+   * Builds the graph once, then solves it with the backing algorithm that the default
+   * {@link SolverCostModel} expects to be fastest, given its size and degrees.
+   */
+  public static HamiltonianCycleSolver auto() {
+    return auto(SolverCostModel.defaults());
+  }
+
+  /** Like {@link #auto()}, choosing with the given cost model. */
+  public static HamiltonianCycleSolver auto(SolverCostModel model) {
+    return new HamiltonianCycleAuto(Objects.requireNonNull(model));
+  }
+
+  /**
+   * Races the engines best suited to each graph against each other, each on its own thread, and
+   * returns the first answer. See {@link #portfolio(Executor, HamiltonianCycleSolver...)}.
+   */
+  public static HamiltonianCycleSolver portfolio() {
+    return new HamiltonianCyclePortfolio(HamiltonianCyclePortfolio.THREAD_PER_ENGINE,
+        Collections.emptyList());
+  }
+
+  /**
+   * Builds the graph once, then races the given engines (or, if there are none, the ones best
+   * suited to the graph) against each other on the executor, returning the first answer and
+   * telling the rest to stop. The executor needs a thread per engine for them to actually race.
+   * Engines must come from this interface's factories, except the LazyDFS, which builds its own
+   * graph, and the directed solvers, which need a graph reduced along its arcs.
+   */
+  public static HamiltonianCycleSolver portfolio(Executor executor,
+      HamiltonianCycleSolver... engines) {
+    return new HamiltonianCyclePortfolio(Objects.requireNonNull(executor),
+        Arrays.asList(engines.clone()));
+  }
 
   public static HamiltonianCycleSolver DFS() {
     return new HamiltonianCycleDFS();
   }
 
+  /** A DFS that splits the top of the search tree into tasks run (and stolen) on the given pool. */
+  public static HamiltonianCycleSolver DFS(ForkJoinPool pool) {
+    return new HamiltonianCycleDFS(Objects.requireNonNull(pool));
+  }
+
   public static HamiltonianCycleSolver BFS() {
     return new HamiltonianCycleBFS();
   }
+
+  /** A BFS that builds each level of paths in parallel on the given pool. */
+  public static HamiltonianCycleSolver BFS(ForkJoinPool pool) {
+    return new HamiltonianCycleBFS(Objects.requireNonNull(pool));
+  }
+
+  /**
+   * A DFS for directed graphs: {@code adjacencyFn.test(a, b)} (or b being one of a's neighbors)
+   * means there's an arc from a to b, and the cycle (or path) may only follow arcs forwards.
+   */
+  public static HamiltonianCycleSolver DirectedDFS() {
+    return new HamiltonianCycleDFS(null, true);
+  }
+
+  /** The {@link #DirectedDFS()}, splitting the top of the search tree across the given pool. */
+  public static HamiltonianCycleSolver DirectedDFS(ForkJoinPool pool) {
+    return new HamiltonianCycleDFS(Objects.requireNonNull(pool), true);
+  }
+
+  /** A BFS for directed graphs, which follows arcs as the {@link #DirectedDFS()} does. */
+  public static HamiltonianCycleSolver DirectedBFS() {
+    return new HamiltonianCycleBFS(null, true);
+  }
+
+  /** The {@link #DirectedBFS()}, building each level of paths in parallel on the given pool. */
+  public static HamiltonianCycleSolver DirectedBFS(ForkJoinPool pool) {
+    return new HamiltonianCycleBFS(Objects.requireNonNull(pool), true);
+  }
+
+  /** The BFS, for sparse graphs of up to 256 elements. */
+  public static HamiltonianCycleSolver LargeBFS() {
+    return new HamiltonianCycleLargeBFS();
+  }
+
+  /** The DFS, for graphs of any size, with pruning and move ordering for large sparse graphs. */
+  public static HamiltonianCycleSolver LargeDFS() {
+    return new HamiltonianCycleLargeDFS();
+  }
+
+  /** A DFS that only evaluates adjacency for the elements it steps away from; see LazyDFS(...). */
+  public static HamiltonianCycleSolver LazyDFS() {
+    return new HamiltonianCycleLazyDFS();
+  }
+
+  /**
+   * A DFS that only evaluates adjacency for the elements it steps away from, for when the adjacency
+   * function is expensive and a cycle is likely. After each solve, the number of adjacency function
+   * calls saved by not building the whole graph is passed to {@code predicateCallsSaved}.
+   */
+  public static HamiltonianCycleSolver LazyDFS(LongConsumer predicateCallsSaved) {
+    return new HamiltonianCycleLazyDFS(Objects.requireNonNull(predicateCallsSaved));
+  }
+
+  public static HamiltonianCycleSolver DP() {
+    return new HamiltonianCycleDP();
+  }
 }
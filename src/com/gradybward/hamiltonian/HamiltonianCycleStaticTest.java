@@ -0,0 +1,115 @@
+package com.gradybward.hamiltonian;
+
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+/**
+ * Tests the static methods of {@link HamiltonianCycleSolver}, which don't depend on a solver, so
+ * run once per graph of {@link HamiltonianCycleTest}.
+ */
+@RunWith(Parameterized.class)
+public class HamiltonianCycleStaticTest {
+
+  private final String graphName;
+  private final int[][] adjacencyList;
+  private final boolean cycleExists;
+
+  public HamiltonianCycleStaticTest(String graphName, int[][] adjacencyList,
+      boolean cycleExists) {
+    this.graphName = graphName;
+    this.adjacencyList = adjacencyList;
+    this.cycleExists = cycleExists;
+  }
+
+  @Test
+  public void runTestEnumeration() {
+    if (adjacencyList.length > BitGraph.MAX_VERTICES) {
+      return;
+    }
+    Set<String> seen = new HashSet<>();
+    HamiltonianCycleSolver.enumerateHamiltonianCycles(adjacencyList).forEach(cycle -> {
+      assertTrue(graphName, cycle.length == adjacencyList.length && cycle[0] == 0);
+      assertTrue(graphName, cycle[1] < cycle[cycle.length - 1]);
+      for (int i = 0; i < cycle.length; i++) {
+        assertTrue(graphName, isAdjacent(cycle[i], cycle[(i + 1) % cycle.length]));
+      }
+      assertTrue(graphName, seen.add(Arrays.toString(cycle)));
+    });
+    assertTrue(graphName, !seen.isEmpty() == cycleExists);
+    if (graphName.startsWith("Perfect")) {
+      long expected = 1;
+      for (int i = 3; i < adjacencyList.length; i++) {
+        expected *= i;
+      }
+      assertTrue(graphName, seen.size() == expected); // (N - 1)! / 2
+    } else if (graphName.contains("Loop")) {
+      assertTrue(graphName, seen.size() == 1);
+    }
+  }
+
+  @Test
+  public void runTestCounting() {
+    // Counting takes 2^N steps, so only run it on small graphs.
+    if (adjacencyList.length > 20) {
+      return;
+    }
+    long expected = HamiltonianCycleSolver.enumerateHamiltonianCycles(adjacencyList).count();
+    assertTrue(graphName, HamiltonianCycleSolver.countHamiltonianCycles(adjacencyList)
+        .equals(BigInteger.valueOf(expected)));
+    assertTrue(graphName, HamiltonianCycleSolver.countHamiltonianCycles(adjacencyList,
+        ForkJoinPool.commonPool()).equals(BigInteger.valueOf(expected)));
+    assertTrue(graphName,
+        HamiltonianCycleSolver.countHamiltonianCycles(adjacencyList, 1_000_003) == expected
+            % 1_000_003);
+  }
+
+  @Test
+  public void runTestCheapestCycle() {
+    if (adjacencyList.length > BitGraph.MAX_VERTICES) {
+      return;
+    }
+    // With every edge costing the same, any cycle is a cheapest one.
+    Optional<List<Integer>> cycle = HamiltonianCycleSolver.findCheapestHamiltonianCycle(
+        elements(adjacencyList), (a, b) -> isAdjacent(a, b) ? 1 : Double.POSITIVE_INFINITY);
+    assertTrue(graphName, cycle.isPresent() == cycleExists);
+    if (cycle.isPresent()) {
+      int n = adjacencyList.length;
+      assertTrue(graphName, cycle.get().size() == n && new HashSet<>(cycle.get()).size() == n);
+      for (int i = 0; i < n; i++) {
+        assertTrue(graphName, isAdjacent(cycle.get().get(i), cycle.get().get((i + 1) % n)));
+      }
+    }
+  }
+
+  private boolean isAdjacent(int a, int b) {
+    for (int c : adjacencyList[a]) {
+      if (c == b) return true;
+    }
+    return false;
+  }
+
+  private List<Integer> elements(int[][] a) {
+    List<Integer> result = new ArrayList<>();
+    for (int i = 0; i < a.length; i++) {
+      result.add(i);
+    }
+    return result;
+  }
+
+  @Parameterized.Parameters
+  public static List<Object[]> testCases() {
+    return HamiltonianCycleTest.graphs();
+  }
+}
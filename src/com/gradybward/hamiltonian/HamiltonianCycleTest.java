@@ -4,7 +4,10 @@ import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -32,12 +35,116 @@ public class HamiltonianCycleTest {
     assertTrue(
         String.format("%s %s\n%s", solver.getClass(), graphName,
             Arrays.deepToString(adjacencyList)),
-        solver.findHamiltonianCycle(elements(adjacencyList), (a, b) -> {
-          for (int c : adjacencyList[a]) {
-            if (c == b) return true;
-          }
-          return false;
-        }).isPresent() == cycleExists);
+        solver.findHamiltonianCycle(elements(adjacencyList), this::isAdjacent)
+            .isPresent() == cycleExists);
+  }
+
+  @Test
+  public void runTestWithUndirectedParallelBuild() {
+    AdjacencyBuild build =
+        AdjacencyBuild.everyOrderedPair().undirected().parallel(ForkJoinPool.commonPool());
+    assertTrue(
+        String.format("%s %s\n%s", solver.getClass(), graphName,
+            Arrays.deepToString(adjacencyList)),
+        solver.findHamiltonianCycle(elements(adjacencyList), this::isAdjacent, build)
+            .isPresent() == cycleExists);
+  }
+
+  @Test
+  public void runTestWithAdjacencyLists() {
+    Optional<int[]> cycle = solver.findHamiltonianCycle(adjacencyList);
+    String message = String.format("%s %s\n%s", solver.getClass(), graphName,
+        Arrays.deepToString(adjacencyList));
+    assertTrue(message, cycle.isPresent() == cycleExists);
+    if (cycle.isPresent()) {
+      int[] inOrder = cycle.get();
+      assertTrue(message, inOrder.length == adjacencyList.length);
+      boolean[] seen = new boolean[inOrder.length];
+      for (int i = 0; i < inOrder.length; i++) {
+        assertTrue(message, !seen[inOrder[i]]);
+        seen[inOrder[i]] = true;
+        assertTrue(message, isAdjacent(inOrder[i], inOrder[(i + 1) % inOrder.length]));
+      }
+    }
+  }
+
+  @Test
+  public void runTestWithCancelledToken() {
+    CancellationToken token = CancellationToken.create();
+    token.cancel();
+    assertTrue(String.format("%s %s", solver.getClass(), graphName),
+        solver.solve(elements(adjacencyList), this::isAdjacent, token)
+            .status() == HamiltonianCycleResult.Status.UNKNOWN);
+  }
+
+  @Test
+  public void runTestAsync() {
+    assertTrue(
+        String.format("%s %s\n%s", solver.getClass(), graphName,
+            Arrays.deepToString(adjacencyList)),
+        solver.findHamiltonianCycleAsync(elements(adjacencyList), this::isAdjacent,
+            ForkJoinPool.commonPool()).join().isPresent() == cycleExists);
+  }
+
+  @Test
+  public void runTestPath() {
+    if (adjacencyList.length > ((SizeLimits) solver).maxPathElements()) {
+      return;
+    }
+    String message = String.format("%s %s", solver.getClass(), graphName);
+    Optional<int[]> path = solver.findHamiltonianPath(adjacencyList);
+    // Dropping any edge of a Hamiltonian cycle leaves a Hamiltonian path.
+    assertTrue(message, path.isPresent() || !cycleExists);
+    if (!path.isPresent()) {
+      return;
+    }
+    assertTrue(message, isHamiltonianPath(path.get()));
+    int start = path.get()[0];
+    int end = path.get()[path.get().length - 1];
+    if (start != end) {
+      HamiltonianCycleResult<Integer> fixed = solver.solvePath(elements(adjacencyList),
+          this::isAdjacent, start, end, CancellationToken.create());
+      assertTrue(message + " " + fixed, fixed.status() == HamiltonianCycleResult.Status.FOUND);
+      int[] fixedPath = fixed.cycleIndexes().get();
+      assertTrue(message, isHamiltonianPath(fixedPath));
+      assertTrue(message, fixedPath[0] == start && fixedPath[fixedPath.length - 1] == end);
+      assertTrue(message, fixed.statistics().predicateCalls() > 0);
+      CancellationToken cancelled = CancellationToken.create();
+      cancelled.cancel();
+      assertTrue(message, solver.solvePath(elements(adjacencyList), this::isAdjacent, start, end,
+          cancelled).status() == HamiltonianCycleResult.Status.UNKNOWN);
+    }
+  }
+
+  private boolean isHamiltonianPath(int[] path) {
+    if (path.length != adjacencyList.length
+        || Arrays.stream(path).distinct().count() != path.length) {
+      return false;
+    }
+    for (int i = 1; i < path.length; i++) {
+      if (!isAdjacent(path[i - 1], path[i])) return false;
+    }
+    return true;
+  }
+
+  @Test
+  public void runTestWithStatistics() {
+    HamiltonianCycleResult<Integer> result =
+        solver.solve(elements(adjacencyList), this::isAdjacent, CancellationToken.create());
+    String message = String.format("%s %s %s", solver.getClass(), graphName, result);
+    assertTrue(message, (result.status() == HamiltonianCycleResult.Status.FOUND) == cycleExists);
+    assertTrue(message, result.cycleIndexes().map(Arrays::toString)
+        .equals(result.cycle().map(cycle -> cycle.toString())));
+    long n = adjacencyList.length;
+    long calls = result.statistics().predicateCalls();
+    assertTrue(message + " " + result.statistics(), calls > 0 && calls <= n * (n - 1));
+  }
+
+  private boolean isAdjacent(int a, int b) {
+    for (int c : adjacencyList[a]) {
+      if (c == b) return true;
+    }
+    return false;
   }
 
   private List<Integer> elements(int[][] a) {
@@ -102,8 +209,43 @@ public class HamiltonianCycleTest {
     return r;
   }
 
-  @Parameterized.Parameters
-  public static List<Object[]> testCases() {
+  // Elements 0 and 1 joined by three separate paths, each through s other elements.
+  private static int[][] createThetaGraph(int s) {
+    int[][] r = new int[2 + 3 * s][];
+    r[0] = new int[3];
+    r[1] = new int[3];
+    for (int p = 0; p < 3; p++) {
+      int first = 2 + p * s;
+      int last = first + s - 1;
+      r[0][p] = first;
+      r[1][p] = last;
+      for (int i = first; i <= last; i++) {
+        r[i] = new int[] { i == first ? 0 : i - 1, i == last ? 1 : i + 1 };
+      }
+    }
+    return r;
+  }
+
+  // Two copies of the perfectly connected graph of size s that share element 0.
+  private static int[][] createCliquesSharingOneElement(int s) {
+    int[][] r = new int[2 * s - 1][];
+    r[0] = new int[2 * s - 2];
+    for (int i = 1; i < 2 * s - 1; i++) {
+      r[0][i - 1] = i;
+      int offset = i < s ? 0 : s - 1;
+      r[i] = new int[s - 1];
+      r[i][0] = 0;
+      for (int j = 1, k = 1; j < s; j++) {
+        if (j + offset != i) {
+          r[i][k++] = j + offset;
+        }
+      }
+    }
+    return r;
+  }
+
+  /** Every test graph, as {name, adjacency lists, whether it has a Hamiltonian cycle}. */
+  static List<Object[]> graphs() {
     List<Object[]> expectations = new ArrayList<>();
 
     expectations.add(new Object[] { "SemiConnected", semiConnectedGraph, false });
@@ -117,14 +259,51 @@ public class HamiltonianCycleTest {
     expectations.add(new Object[] { "12Loop", createLoopOfSize(12), true });
     expectations.add(new Object[] { "63Loop", createLoopOfSize(63), true });
     expectations.add(new Object[] { "Perfect10", createPerfectlyConnectedGraph(10), true });
+    expectations.add(new Object[] { "100Loop", createLoopOfSize(100), true });
+    expectations.add(new Object[] { "Theta30", createThetaGraph(30), false });
+    expectations.add(new Object[] { "Theta5", createThetaGraph(5), false });
+    expectations.add(new Object[] { "1000Loop", createLoopOfSize(1000), true });
+    expectations.add(new Object[] { "Theta400", createThetaGraph(400), false });
+    expectations.add(
+        new Object[] { "CliquesSharingOneElement6", createCliquesSharingOneElement(6), false });
+    return expectations;
+  }
 
+  /** Every solver under test. */
+  static List<HamiltonianCycleSolver> solvers() {
     List<HamiltonianCycleSolver> solvers = new ArrayList<>();
     solvers.add(new HamiltonianCycleBFS());
+    solvers.add(new HamiltonianCycleBFS(ForkJoinPool.commonPool()));
     solvers.add(new HamiltonianCycleDFS());
+    solvers.add(new HamiltonianCycleDFS(ForkJoinPool.commonPool()));
+    solvers.add(new HamiltonianCycleDP());
+    solvers.add(new HamiltonianCycleLargeBFS());
+    solvers.add(new HamiltonianCycleLargeDFS());
+    solvers.add(new HamiltonianCycleLazyDFS());
+    solvers.add(new HamiltonianCycleAuto(SolverCostModel.defaults()));
+    solvers.add(new HamiltonianCyclePortfolio(HamiltonianCyclePortfolio.THREAD_PER_ENGINE,
+        Collections.emptyList()));
+    // On an undirected graph, where every edge is an arc each way, these find the same cycles.
+    solvers.addAll(directedSolvers());
+    return solvers;
+  }
+
+  /** Every directed solver under test. */
+  static List<HamiltonianCycleSolver> directedSolvers() {
+    return Arrays.asList(HamiltonianCycleSolver.DirectedBFS(),
+        HamiltonianCycleSolver.DirectedBFS(ForkJoinPool.commonPool()),
+        HamiltonianCycleSolver.DirectedDFS(),
+        HamiltonianCycleSolver.DirectedDFS(ForkJoinPool.commonPool()));
+  }
 
+  @Parameterized.Parameters
+  public static List<Object[]> testCases() {
     List<Object[]> result = new ArrayList<>();
-    for (Object[] o : expectations) {
-      for (Object s : solvers) {
+    for (Object[] o : graphs()) {
+      for (HamiltonianCycleSolver s : solvers()) {
+        if (((int[][]) o[1]).length > ((SizeLimits) s).maxElements()) {
+          continue;
+        }
         result.add(new Object[] { s, o[0], o[1], o[2] });
       }
     }
@@ -0,0 +1,169 @@
+package com.gradybward.hamiltonian;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.BiPredicate;
+import java.util.function.BooleanSupplier;
+
+/**
+ * A graph of any size, stored as one multi-word neighbor bitstring per vertex.
+ *
+ * <p>
+ * The {@link BitGraph} equivalent for graphs of more than 64 vertices. Each vertex's neighbors
+ * take {@link #words()} longs, with vertex i represented by bit {@code i % 64} of word
+ * {@code i / 64}. All of the rows live in one flat array, so walking a row is a linear scan.
+ */
+final class LargeBitGraph {
+
+  private final int n;
+  private final int words;
+  private final long[] neighbors;
+
+  LargeBitGraph(int n, long[] neighbors) {
+    this.n = n;
+    this.words = wordsFor(n);
+    this.neighbors = neighbors;
+  }
+
+  /**
+   * Evaluates the adjacency function as {@code build} says to. Vertex i of the result is
+   * {@code elements.get(i)}; self-loops are never recorded. If {@code stopped}, the result is
+   * incomplete. The calls made are added to {@code stats}.
+   */
+  static <T> LargeBitGraph of(List<T> elements, BiPredicate<T, T> adjacencyFn,
+      AdjacencyBuild build, BooleanSupplier stopped, SearchStatistics stats) {
+    int n = elements.size();
+    return new LargeBitGraph(n,
+        build.neighbors(elements, adjacencyFn, wordsFor(n), stopped, stats));
+  }
+
+  /**
+   * Vertex i's neighbors are the entries of {@code adjacencyLists[i]}; self-loops and repeated
+   * entries are ignored.
+   */
+  static LargeBitGraph of(int[][] adjacencyLists) {
+    int n = adjacencyLists.length;
+    int words = wordsFor(n);
+    long[] neighbors = new long[n * words];
+    for (int i = 0; i < n; i++) {
+      for (int j : adjacencyLists[i]) {
+        checkVertex(n, j);
+        if (i != j) {
+          neighbors[i * words + (j >>> 6)] |= 1L << j;
+        }
+      }
+    }
+    return new LargeBitGraph(n, neighbors);
+  }
+
+  /** Vertex i's neighbors are the set bits of {@code neighbors[i]}; self-loops are ignored. */
+  static LargeBitGraph of(long[] neighbors) {
+    int n = neighbors.length;
+    if (n > 64) {
+      throw new IllegalArgumentException(String.format(
+          "A long bitstring can only record 64 neighbors, but there are %s vertices.", n));
+    }
+    long[] copy = new long[n];
+    for (int i = 0; i < n; i++) {
+      if (neighbors[i] != 0) {
+        checkVertex(n, 63 - Long.numberOfLeadingZeros(neighbors[i]));
+      }
+      copy[i] = neighbors[i] & ~(1L << i);
+    }
+    return new LargeBitGraph(n, copy);
+  }
+
+  /** Vertex i's neighbors are the set bits of {@code neighbors[i]}; self-loops are ignored. */
+  static LargeBitGraph of(BitSet[] neighbors) {
+    int n = neighbors.length;
+    int words = wordsFor(n);
+    long[] result = new long[n * words];
+    for (int i = 0; i < n; i++) {
+      if (!neighbors[i].isEmpty()) {
+        checkVertex(n, neighbors[i].length() - 1);
+      }
+      long[] row = neighbors[i].toLongArray();
+      System.arraycopy(row, 0, result, i * words, row.length);
+      result[i * words + (i >>> 6)] &= ~(1L << i);
+    }
+    return new LargeBitGraph(n, result);
+  }
+
+  private static void checkVertex(int n, int vertex) {
+    if (vertex < 0 || vertex >= n) {
+      throw new IllegalArgumentException(
+          String.format("Vertex %s is out of range for a graph of %s vertices.", vertex, n));
+    }
+  }
+
+  /** The number of longs needed for a bitstring over {@code n} vertices. */
+  static int wordsFor(int n) {
+    return (n + 63) >>> 6;
+  }
+
+  int size() {
+    return n;
+  }
+
+  int words() {
+    return words;
+  }
+
+  /** Word {@code word} of the vertex's neighbor bitstring. */
+  long neighbors(int vertex, int word) {
+    return neighbors[vertex * words + word];
+  }
+
+  boolean isAdjacent(int from, int to) {
+    return (neighbors[from * words + (to >>> 6)] & (1L << to)) != 0;
+  }
+
+  int degree(int vertex) {
+    int result = 0;
+    for (int w = 0; w < words; w++) {
+      result += Long.bitCount(neighbors[vertex * words + w]);
+    }
+    return result;
+  }
+
+  int minimumDegree() {
+    int result = Integer.MAX_VALUE;
+    for (int i = 0; i < n; i++) {
+      result = Math.min(result, degree(i));
+    }
+    return result;
+  }
+
+  /**
+   * Every vertex's neighbors as an ascending list, which is cheaper to walk than the bitstring
+   * once the graph is large and sparse.
+   */
+  int[][] adjacencyLists() {
+    int[][] result = new int[n][];
+    for (int v = 0; v < n; v++) {
+      int[] list = new int[degree(v)];
+      int i = 0;
+      for (int w = 0; w < words; w++) {
+        for (long bs = neighbors[v * words + w]; bs != 0; bs &= bs - 1) {
+          list[i++] = (w << 6) + Long.numberOfTrailingZeros(bs);
+        }
+      }
+      result[v] = list;
+    }
+    return result;
+  }
+
+  /** This graph as a {@link BitGraph}, if it has at most 64 vertices. */
+  BitGraph toBitGraph() {
+    return new BitGraph(neighbors);
+  }
+
+  /** A bitstring with one bit set for every vertex in the graph. */
+  long[] vertices() {
+    long[] result = new long[words];
+    for (int i = 0; i < n; i++) {
+      result[i >>> 6] |= 1L << i;
+    }
+    return result;
+  }
+}
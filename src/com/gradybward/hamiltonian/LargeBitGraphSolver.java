@@ -0,0 +1,170 @@
+package com.gradybward.hamiltonian;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BiPredicate;
+import java.util.function.BooleanSupplier;
+
+/**
+ * The {@link BitGraphSolver} equivalent for solvers that work on a {@link LargeBitGraph}.
+ *
+ * <p>
+ * Builds the graph from whichever form the caller has it in, rejects graphs that obviously have no
+ * cycle, runs {@link LargeForcedEdgeReduction} to strip out edges that can't be in one, and only
+ * then hands the (reduced) graph to the backing algorithm. Paths are found as cycles through an
+ * extra vertex (see {@link PathToCycleReduction}), so the backing algorithm must take one vertex
+ * more than the path has.
+ */
+abstract class LargeBitGraphSolver implements HamiltonianCycleSolver, SizeLimits {
+
+  /** Any number, unless {@link #checkSize} is overridden. */
+  @Override
+  public int maxElements() {
+    return Integer.MAX_VALUE;
+  }
+
+  @Override
+  public int maxPathElements() {
+    return maxElements() == Integer.MAX_VALUE ? Integer.MAX_VALUE : maxElements() - 1;
+  }
+
+  @Override
+  public final <T> HamiltonianCycleResult<T> solve(List<T> elements,
+      BiPredicate<T, T> adjacencyFn, AdjacencyBuild build, CancellationToken token) {
+    checkSize(elements.size());
+    BooleanSupplier stopped = token::isCancelled;
+    SearchStatistics stats = new SearchStatistics();
+    long start = System.nanoTime();
+    LargeBitGraph graph = LargeBitGraph.of(elements, adjacencyFn, build, stopped, stats);
+    stats.addBuildNanos(System.nanoTime() - start);
+    Optional<int[]> idxes =
+        stopped.getAsBoolean() ? Optional.empty() : findHamiltonianCycle(graph, stopped, stats);
+    return HamiltonianCycleResult.of(elements, idxes, token, stats);
+  }
+
+  @Override
+  public final Optional<int[]> findHamiltonianCycle(int[][] adjacencyLists) {
+    checkSize(adjacencyLists.length);
+    return findHamiltonianCycle(LargeBitGraph.of(adjacencyLists));
+  }
+
+  @Override
+  public final Optional<int[]> findHamiltonianCycle(long[] neighbors) {
+    checkSize(neighbors.length);
+    return findHamiltonianCycle(LargeBitGraph.of(neighbors));
+  }
+
+  @Override
+  public final Optional<int[]> findHamiltonianCycle(BitSet[] neighbors) {
+    checkSize(neighbors.length);
+    return findHamiltonianCycle(LargeBitGraph.of(neighbors));
+  }
+
+  @Override
+  public final <T> HamiltonianCycleResult<T> solvePath(List<T> elements,
+      BiPredicate<T, T> adjacencyFn, AdjacencyBuild build, CancellationToken token) {
+    return solvePath(elements, adjacencyFn, -1, -1, build, token);
+  }
+
+  @Override
+  public final <T> HamiltonianCycleResult<T> solvePath(List<T> elements,
+      BiPredicate<T, T> adjacencyFn, T start, T end, AdjacencyBuild build,
+      CancellationToken token) {
+    int[] ends = PathToCycleReduction.endIndexes(elements, start, end);
+    return solvePath(elements, adjacencyFn, ends[0], ends[1], build, token);
+  }
+
+  @Override
+  public final Optional<int[]> findHamiltonianPath(int[][] adjacencyLists) {
+    checkSize(adjacencyLists.length + 1);
+    return findHamiltonianPath(LargeBitGraph.of(adjacencyLists), -1, -1, () -> false,
+        SearchStatistics.discarded());
+  }
+
+  @Override
+  public final Optional<int[]> findHamiltonianPath(int[][] adjacencyLists, int start, int end) {
+    PathToCycleReduction.checkEnds(adjacencyLists.length, start, end);
+    checkSize(adjacencyLists.length + 1);
+    return findHamiltonianPath(LargeBitGraph.of(adjacencyLists), start, end, () -> false,
+        SearchStatistics.discarded());
+  }
+
+  private <T> HamiltonianCycleResult<T> solvePath(List<T> elements,
+      BiPredicate<T, T> adjacencyFn, int start, int end, AdjacencyBuild build,
+      CancellationToken token) {
+    checkSize(elements.size() + 1);
+    BooleanSupplier stopped = token::isCancelled;
+    SearchStatistics stats = new SearchStatistics();
+    long startedAt = System.nanoTime();
+    LargeBitGraph graph = LargeBitGraph.of(elements, adjacencyFn, build, stopped, stats);
+    stats.addBuildNanos(System.nanoTime() - startedAt);
+    Optional<int[]> idxes = stopped.getAsBoolean() ? Optional.empty()
+        : findHamiltonianPath(graph, start, end, stopped, stats);
+    return HamiltonianCycleResult.of(elements, idxes, token, stats);
+  }
+
+  /**
+   * Returns the indexes of the graph's vertices in path order, if there is a Hamiltonian path.
+   * If {@code start} isn't -1, only paths from {@code start} to {@code end} count.
+   */
+  private Optional<int[]> findHamiltonianPath(LargeBitGraph graph, int start, int end,
+      BooleanSupplier stopped, SearchStatistics stats) {
+    int n = graph.size();
+    if (n <= 1) {
+      return n == 0 ? Optional.empty() : Optional.of(new int[] { 0 });
+    }
+    return solvePath(graph, start, end, stopped, stats);
+  }
+
+  /**
+   * Finds a Hamiltonian path in a graph of at least 2 vertices, from {@code start} to {@code end}
+   * unless they're -1, as a cycle through an extra vertex (see {@link PathToCycleReduction}).
+   * Gives up and records its work as {@link #solve} does.
+   */
+  Optional<int[]> solvePath(LargeBitGraph graph, int start, int end, BooleanSupplier stopped,
+      SearchStatistics stats) {
+    return findHamiltonianCycle(PathToCycleReduction.withExtraVertex(graph, start, end), stopped,
+        stats).map(cycle -> PathToCycleReduction.pathOf(cycle, start));
+  }
+
+  /** Returns the indexes of the graph's vertices in cycle order, if there is a cycle. */
+  final Optional<int[]> findHamiltonianCycle(LargeBitGraph graph) {
+    return findHamiltonianCycle(graph, () -> false, SearchStatistics.discarded());
+  }
+
+  /**
+   * Like {@link #findHamiltonianCycle(LargeBitGraph)}, but gives up once {@code stopped}, and
+   * records its work in {@code stats}.
+   */
+  final Optional<int[]> findHamiltonianCycle(LargeBitGraph graph, BooleanSupplier stopped,
+      SearchStatistics stats) {
+    if (BitGraph.isTooSmallForACycle(graph.size()) || graph.minimumDegree() < 2) {
+      return Optional.empty(); // A cycle requires every vertex to have 2+ edges.
+    }
+    long start = System.nanoTime();
+    Optional<LargeBitGraph> reduced = LargeForcedEdgeReduction.reduce(graph);
+    long reducedAt = System.nanoTime();
+    stats.addReductionNanos(reducedAt - start);
+    if (!reduced.isPresent()) {
+      return Optional.empty();
+    }
+    Optional<int[]> cycle = solve(reduced.get(), stopped, stats);
+    stats.addSearchNanos(System.nanoTime() - reducedAt);
+    return cycle;
+  }
+
+  /**
+   * Throws an {@link IllegalArgumentException} if the backing algorithm can't handle a graph of
+   * {@code n} vertices. Called before the graph is built, so nothing is wasted on building it.
+   */
+  void checkSize(int n) {}
+
+  /**
+   * Finds a Hamiltonian cycle in a reduced graph of at least 3 vertices, each with at least 2
+   * neighbors. Gives up and returns empty soon after {@code stopped} starts returning true; see
+   * {@link BitGraphSolver#solve}.
+   */
+  abstract Optional<int[]> solve(LargeBitGraph graph, BooleanSupplier stopped,
+      SearchStatistics stats);
+}
@@ -0,0 +1,166 @@
+package com.gradybward.hamiltonian;
+
+import java.util.Optional;
+
+/**
+ * The {@link ForcedEdgeReduction} for a {@link LargeBitGraph}: the same rules, applied to
+ * multi-word neighbor bitstrings.
+ *
+ * <p>
+ * An element has at most two forced edges, so rather than a bitstring of them, each element
+ * records the (up to) two elements it's forced to. On the sparse graphs the large solvers are for,
+ * where most elements have degree 2 or 3, this settles most of the cycle before any search starts,
+ * which matters most to the LargeBFS: every choice it would otherwise have is multiplied into the
+ * paths it stores.
+ */
+final class LargeForcedEdgeReduction {
+
+  private final int n;
+  private final int words;
+  private final long[] adjacent;
+  private final int[] degree;
+  // The elements each element is forced to, -1 where it has fewer than two forced edges.
+  private final int[] forcedFirst;
+  private final int[] forcedSecond;
+  // For an element at the end of a forced path, the element at its other end (an element with no
+  // forced edges is a path of its own). Meaningless for elements in the middle of a forced path.
+  private final int[] otherEnd;
+  // For an element at the end of a forced path, how many elements the path has.
+  private final int[] pathSize;
+  private final int[] queue;
+  private final boolean[] queued;
+  private int queueSize;
+
+  private LargeForcedEdgeReduction(LargeBitGraph graph) {
+    n = graph.size();
+    words = graph.words();
+    adjacent = new long[n * words];
+    degree = new int[n];
+    forcedFirst = new int[n];
+    forcedSecond = new int[n];
+    otherEnd = new int[n];
+    pathSize = new int[n];
+    queue = new int[n];
+    queued = new boolean[n];
+    for (int i = 0; i < n; i++) {
+      for (int w = 0; w < words; w++) {
+        adjacent[i * words + w] = graph.neighbors(i, w);
+      }
+      degree[i] = graph.degree(i);
+      forcedFirst[i] = -1;
+      forcedSecond[i] = -1;
+      otherEnd[i] = i;
+      pathSize[i] = 1;
+      enqueue(i);
+    }
+  }
+
+  /**
+   * Returns an equivalent graph (one with exactly the same Hamiltonian cycles) with every edge the
+   * rules rule out removed, or empty if the rules prove that there is no Hamiltonian cycle.
+   */
+  static Optional<LargeBitGraph> reduce(LargeBitGraph graph) {
+    LargeForcedEdgeReduction reduction = new LargeForcedEdgeReduction(graph);
+    if (!reduction.propagate()) {
+      return Optional.empty();
+    }
+    return Optional.of(new LargeBitGraph(reduction.n, reduction.adjacent));
+  }
+
+  /** Applies the rules until nothing changes. Returns false on a contradiction. */
+  private boolean propagate() {
+    while (queueSize > 0) {
+      int v = queue[--queueSize];
+      queued[v] = false;
+      if (degree[v] < 2) {
+        return false;
+      }
+      if (degree[v] == 2) {
+        // Forcing one edge can delete the other (if it would close a short cycle), so re-read.
+        for (int u = unforcedNeighbor(v); u >= 0; u = unforcedNeighbor(v)) {
+          if (!force(v, u) || degree[v] < 2) {
+            return false;
+          }
+        }
+      }
+      if (forcedSecond[v] >= 0) {
+        for (int u = unforcedNeighbor(v); u >= 0; u = unforcedNeighbor(v)) {
+          delete(v, u);
+        }
+      }
+    }
+    return true;
+  }
+
+  /** Some neighbor of {@code v} that it isn't forced to, or -1 if there is none. */
+  private int unforcedNeighbor(int v) {
+    for (int w = 0; w < words; w++) {
+      for (long bs = adjacent[v * words + w]; bs != 0; bs &= bs - 1) {
+        int u = (w << 6) + Long.numberOfTrailingZeros(bs);
+        if (u != forcedFirst[v] && u != forcedSecond[v]) {
+          return u;
+        }
+      }
+    }
+    return -1;
+  }
+
+  private boolean force(int a, int b) {
+    if (forcedSecond[a] >= 0 || forcedSecond[b] >= 0) {
+      return false; // One of them would need three edges in the cycle.
+    }
+    int endA = otherEnd[a];
+    int endB = otherEnd[b];
+    int size = pathSize[a] + pathSize[b];
+    addForced(a, b);
+    addForced(b, a);
+    enqueue(a);
+    enqueue(b);
+    if (endA == b) {
+      // This edge closes the forced path into a cycle, which had better be the whole thing.
+      return pathSize[a] == n;
+    }
+    otherEnd[endA] = endB;
+    otherEnd[endB] = endA;
+    pathSize[endA] = size;
+    pathSize[endB] = size;
+    // (With only two elements, the edge joining the ends is the one we just forced.)
+    if (size > 2 && size < n && isAdjacent(endA, endB)) {
+      delete(endA, endB);
+    }
+    return true;
+  }
+
+  private void addForced(int v, int to) {
+    if (forcedFirst[v] < 0) {
+      forcedFirst[v] = to;
+    } else {
+      forcedSecond[v] = to;
+    }
+  }
+
+  private boolean isAdjacent(int a, int b) {
+    return (adjacent[a * words + (b >>> 6)] & (1L << b)) != 0;
+  }
+
+  private void delete(int a, int b) {
+    // Adjacency lists needn't be symmetric, so only count the halves of the edge that are there.
+    if (isAdjacent(a, b)) {
+      adjacent[a * words + (b >>> 6)] &= ~(1L << b);
+      degree[a]--;
+    }
+    if (isAdjacent(b, a)) {
+      adjacent[b * words + (a >>> 6)] &= ~(1L << a);
+      degree[b]--;
+    }
+    enqueue(a);
+    enqueue(b);
+  }
+
+  private void enqueue(int v) {
+    if (!queued[v]) {
+      queued[v] = true;
+      queue[queueSize++] = v;
+    }
+  }
+}
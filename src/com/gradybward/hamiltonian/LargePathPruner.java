@@ -0,0 +1,115 @@
+package com.gradybward.hamiltonian;
+
+/**
+ * The {@link PathPruner} checks, for graphs of any size.
+ *
+ * <p>
+ * Rejects a path from {@code start} to {@code head} if, in the graph H on the unvisited elements
+ * plus the two ends, some unvisited element has fewer than two neighbors, or H plus an edge from
+ * {@code head} to {@code start} is disconnected or has an articulation point. See
+ * {@link PathPruner} for why each of these rules out a cycle.
+ *
+ * <p>
+ * On large sparse graphs, scanning multi-word bitstrings costs O(N^2 / 64) per check, so this walks
+ * neighbor lists instead, making each check O(N + E). Visited sets are still multi-word
+ * bitstrings, as in {@link LargeBitGraph}. All scratch space is allocated up front.
+ */
+final class LargePathPruner {
+
+  private final int n;
+  private final int[][] adjacency;
+  // Scratch space for the articulation point DFS, indexed by vertex or by stack depth.
+  private final int[] discovered;
+  private final int[] low;
+  private final int[] stack;
+  private final int[] cursor;
+
+  LargePathPruner(int[][] adjacency) {
+    this.adjacency = adjacency;
+    n = adjacency.length;
+    discovered = new int[n];
+    low = new int[n];
+    stack = new int[n];
+    cursor = new int[n];
+  }
+
+  /**
+   * Returns false if no Hamiltonian cycle contains the path from {@code start} to {@code head}
+   * that visits exactly {@code visited}. Returns true if the path might be extendable.
+   */
+  boolean canComplete(long[] visited, int start, int head) {
+    int remaining = 0;
+    for (int v = 0; v < n; v++) {
+      if (isSet(visited, v)) {
+        continue;
+      }
+      remaining++;
+      int available = 0;
+      for (int w : adjacency[v]) {
+        if (!isSet(visited, w) || w == start || w == head) {
+          available++;
+        }
+      }
+      if (available < 2) {
+        return false;
+      }
+    }
+    if (remaining == 0) {
+      return true; // The caller still has to check that head and start are adjacent.
+    }
+    return !hasArticulationPoint(visited, remaining + (start == head ? 1 : 2), start, head);
+  }
+
+  /**
+   * Whether the graph on the unvisited elements plus {@code a} and {@code b} (which has
+   * {@code size} elements), with an extra edge between {@code a} and {@code b}, is disconnected
+   * or has an articulation point.
+   */
+  private boolean hasArticulationPoint(long[] visited, int size, int a, int b) {
+    for (int v = 0; v < n; v++) {
+      discovered[v] = 0;
+    }
+    int time = 0;
+    int depth = 0;
+    int rootChildren = 0;
+    discovered[a] = low[a] = ++time;
+    stack[depth] = a;
+    cursor[depth++] = a == b ? 0 : -1; // -1 stands for the extra edge to the other end.
+    while (depth > 0) {
+      int v = stack[depth - 1];
+      if (cursor[depth - 1] < adjacency[v].length) {
+        int w = cursor[depth - 1] < 0 ? (v == a ? b : a) : adjacency[v][cursor[depth - 1]];
+        cursor[depth - 1]++;
+        if (isSet(visited, w) && w != a && w != b) {
+          continue;
+        }
+        if (discovered[w] != 0) {
+          // Includes the edge back to v's parent, which can't make low[v] smaller than the
+          // parent's discovery time, and so can't hide an articulation point.
+          low[v] = Math.min(low[v], discovered[w]);
+        } else {
+          discovered[w] = low[w] = ++time;
+          stack[depth] = w;
+          cursor[depth++] = w == b && a != b ? -1 : 0;
+        }
+        continue;
+      }
+      depth--;
+      if (depth == 0) {
+        break;
+      }
+      int parent = stack[depth - 1];
+      low[parent] = Math.min(low[parent], low[v]);
+      if (depth == 1) {
+        rootChildren++;
+      } else if (low[v] >= discovered[parent]) {
+        return true; // Nothing below v reaches above its parent, so removing the parent cuts it.
+      }
+    }
+    return time < size || rootChildren > 1;
+  }
+
+  private static boolean isSet(long[] bs, int location) {
+    return (bs[location >>> 6] & (1L << location)) != 0;
+  }
+}
@@ -0,0 +1,166 @@
+package com.gradybward.hamiltonian;
+
+import java.util.Arrays;
+
+/**
+ * The {@link PathStore} equivalent for graphs of more than 64 elements.
+ *
+ * <p>
+ * A path's elements take a fixed number of longs (see {@link LargeBitGraph}), its ends are packed
+ * into one int (the lower element in the high 16 bits), and its steps are shorts. As in
+ * {@link PathStore}, everything lives in flat parallel arrays indexed by the path's insertion
+ * order, so a stored path costs 4 bytes of ends, 8 bytes per word of elements, 2 bytes per step,
+ * and a slot or two of the int open-addressing table.
+ */
+final class LargePathStore {
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  private final int pathLength;
+  private final int words;
+  private int size;
+  private int[] startAndEnds;
+  private long[] elementSets;
+  private short[] arena;
+  // Open addressing, linear probing. Each slot holds (index + 1) of a path, or 0 if empty.
+  private int[] table;
+
+  LargePathStore(int pathLength, int words) {
+    this.pathLength = pathLength;
+    this.words = words;
+    startAndEnds = new int[INITIAL_CAPACITY];
+    elementSets = new long[INITIAL_CAPACITY * words];
+    arena = new short[INITIAL_CAPACITY * pathLength];
+    table = new int[INITIAL_CAPACITY * 2];
+  }
+
+  /** The startAndEnd of a path between {@code a} and {@code b}, in either direction. */
+  static int startAndEnd(int a, int b) {
+    return a < b ? (a << 16) | b : (b << 16) | a;
+  }
+
+  int pathLength() {
+    return pathLength;
+  }
+
+  int size() {
+    return size;
+  }
+
+  /** The memory held by this store's arrays, in bytes, counting their unused capacity. */
+  long bytes() {
+    return (long) Integer.BYTES * startAndEnds.length + (long) Long.BYTES * elementSets.length
+        + (long) Short.BYTES * arena.length + (long) Integer.BYTES * table.length;
+  }
+
+  int startAndEnd(int path) {
+    return startAndEnds[path];
+  }
+
+  /** Word {@code word} of the path's elements. */
+  long elements(int path, int word) {
+    return elementSets[path * words + word];
+  }
+
+  short get(int path, int position) {
+    return arena[path * pathLength + position];
+  }
+
+  short first(int path) {
+    return arena[path * pathLength];
+  }
+
+  short last(int path) {
+    return arena[path * pathLength + pathLength - 1];
+  }
+
+  /** Copies the given path into {@code destination}, starting at {@code offset}. */
+  void copy(int path, short[] destination, int offset) {
+    System.arraycopy(arena, path * pathLength, destination, offset, pathLength);
+  }
+
+  /** Returns the index of the path stored under the given key, or -1 if there isn't one. */
+  int find(int startAndEnd, long[] elements) {
+    int mask = table.length - 1;
+    for (int slot = hash(startAndEnd, elements, 0) & mask;; slot = (slot + 1) & mask) {
+      int path = table[slot] - 1;
+      if (path < 0) {
+        return -1;
+      }
+      if (matches(path, startAndEnd, elements)) {
+        return path;
+      }
+    }
+  }
+
+  /**
+   * Stores the first {@link #pathLength()} steps of {@code path} under the given key, unless a
+   * path is already stored under it. Returns true if the path was added.
+   */
+  boolean add(int startAndEnd, long[] elements, short[] path) {
+    int mask = table.length - 1;
+    int slot = hash(startAndEnd, elements, 0) & mask;
+    for (; table[slot] != 0; slot = (slot + 1) & mask) {
+      if (matches(table[slot] - 1, startAndEnd, elements)) {
+        return false;
+      }
+    }
+    if (size == startAndEnds.length) {
+      grow();
+    }
+    int index = size++;
+    table[slot] = index + 1;
+    startAndEnds[index] = startAndEnd;
+    System.arraycopy(elements, 0, elementSets, index * words, words);
+    System.arraycopy(path, 0, arena, index * pathLength, pathLength);
+    if (size * 2 > table.length) {
+      rehash();
+    }
+    return true;
+  }
+
+  private boolean matches(int path, int startAndEnd, long[] elements) {
+    if (startAndEnds[path] != startAndEnd) {
+      return false;
+    }
+    for (int w = 0, offset = path * words; w < words; w++) {
+      if (elementSets[offset + w] != elements[w]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void grow() {
+    int capacity = startAndEnds.length * 2;
+    if ((long) capacity * Math.max(pathLength, words) > Integer.MAX_VALUE) {
+      throw new IllegalStateException(
+          String.format("Cannot store more than %s paths of length %s.", size, pathLength));
+    }
+    startAndEnds = Arrays.copyOf(startAndEnds, capacity);
+    elementSets = Arrays.copyOf(elementSets, capacity * words);
+    arena = Arrays.copyOf(arena, capacity * pathLength);
+  }
+
+  private void rehash() {
+    table = new int[table.length * 2];
+    int mask = table.length - 1;
+    for (int i = 0; i < size; i++) {
+      int slot = hash(startAndEnds[i], elementSets, i * words) & mask;
+      while (table[slot] != 0) {
+        slot = (slot + 1) & mask;
+      }
+      table[slot] = i + 1;
+    }
+  }
+
+  private int hash(int startAndEnd, long[] elements, int offset) {
+    long h = startAndEnd;
+    for (int w = 0; w < words; w++) {
+      h = h * 0x9E3779B97F4A7C15L + elements[offset + w];
+    }
+    h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+    h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+    return (int) (h ^ (h >>> 33));
+  }
+}
@@ -0,0 +1,206 @@
+package com.gradybward.hamiltonian;
+
+/**
+ * Cheap necessary conditions for a partial path to be extendable into a Hamiltonian cycle.
+ *
+ * <p>
+ * Given a path from {@code start} to {@code head}, the rest of the cycle must be a path from
+ * {@code head} back to {@code start} through every unvisited element. Call the graph on the
+ * unvisited elements plus the two ends H. We reject the partial path if:
+ *
+ * <ul>
+ * <li>Some unvisited element has fewer than two neighbors in H (it can't be passed through), or
+ * either end has no unvisited neighbor.
+ * <li>H is disconnected.
+ * <li>H, with an extra edge joining {@code head} to {@code start}, has an articulation point.
+ * Closing the remaining path with that edge gives a cycle through all of H, and graphs with a
+ * Hamiltonian cycle have no articulation points. This catches both an end whose removal strands
+ * some unvisited elements, and an unvisited element that the remaining path would need to pass
+ * through more than once.
+ * </ul>
+ *
+ * <p>
+ * Everything is computed on neighbor bitstrings into arrays allocated up front, so a check
+ * allocates nothing. The articulation point search is a (non-recursive) Tarjan DFS, so each check
+ * costs O(E) in the worst case, but the first two conditions (O(N) word operations) usually
+ * answer first.
+ */
+final class PathPruner {
+
+  private final BitGraph graph;
+  // For a directed graph, the graph with every arc reversed; null for an undirected one.
+  private final BitGraph reversed;
+  // Scratch space for the articulation point DFS, indexed by vertex or by stack depth.
+  private final int[] discovered;
+  private final int[] low;
+  private final int[] stack;
+  private final long[] untried;
+
+  PathPruner(BitGraph graph) {
+    this(graph, false);
+  }
+
+  /** A pruner that, if {@code directed}, treats neighbors as the ends of arcs out of a vertex. */
+  PathPruner(BitGraph graph, boolean directed) {
+    this.graph = graph;
+    this.reversed = directed ? graph.reversed() : null;
+    int n = graph.size();
+    discovered = new int[n];
+    low = new int[n];
+    stack = new int[n];
+    untried = new long[n];
+  }
+
+  /**
+   * Returns false if no Hamiltonian cycle contains the path from {@code start} to {@code head}
+   * that visits exactly {@code visited}. Returns true if the path might be extendable.
+   */
+  boolean canComplete(long visited, int start, int head) {
+    long unvisited = graph.vertices() & ~visited;
+    if (unvisited == 0) {
+      return true; // The caller still has to check that head and start are adjacent.
+    }
+    if (reversed != null) {
+      return canCompleteDirected(unvisited, start, head);
+    }
+    long ends = (1L << start) | (1L << head);
+    long remaining = unvisited | ends;
+    if ((graph.neighbors(head) & unvisited) == 0 || (graph.neighbors(start) & unvisited) == 0) {
+      return false;
+    }
+    for (long bs = unvisited; bs != 0; bs &= bs - 1) {
+      long available = graph.neighbors(Long.numberOfTrailingZeros(bs)) & remaining;
+      if ((available & (available - 1)) == 0) {
+        return false; // Fewer than two bits set.
+      }
+    }
+    if (reachable(head, remaining) != remaining) {
+      return false;
+    }
+    return start == head || !hasArticulationPoint(remaining, start, head);
+  }
+
+  /**
+   * Returns false if no Hamiltonian path (ending anywhere) starts with a path ending at
+   * {@code head} that visits exactly {@code visited}. Returns true if the path might be extendable.
+   *
+   * <p>
+   * The rest of such a path runs from {@code head} through every unvisited element, so those
+   * elements and {@code head} must be connected, and every unvisited element but the one it ends on
+   * needs two neighbors among them.
+   */
+  boolean canCompletePath(long visited, int head) {
+    long unvisited = graph.vertices() & ~visited;
+    if (unvisited == 0) {
+      return true;
+    }
+    if ((graph.neighbors(head) & unvisited) == 0) {
+      return false;
+    }
+    long remaining = unvisited | (1L << head);
+    boolean endFound = false;
+    for (long bs = unvisited; bs != 0; bs &= bs - 1) {
+      long available = graph.neighbors(Long.numberOfTrailingZeros(bs)) & remaining;
+      if ((available & (available - 1)) == 0) {
+        if (available == 0 || endFound) {
+          return false; // Unreachable, or a second element that could only be the end.
+        }
+        endFound = true;
+      }
+    }
+    return reachable(head, remaining) == remaining;
+  }
+
+  /**
+   * The directed version of {@link #canComplete}. The rest of the cycle runs from {@code head}
+   * through every unvisited element back to {@code start}, so every unvisited element must be
+   * entered from {@code head} or another unvisited element, and left for {@code start} or another
+   * unvisited element, and all of them must be reachable from {@code head} without passing
+   * through {@code start}. Articulation points don't carry over to directed graphs, so they
+   * aren't checked for.
+   */
+  private boolean canCompleteDirected(long unvisited, int start, int head) {
+    if ((graph.neighbors(head) & unvisited) == 0 || (reversed.neighbors(start) & unvisited) == 0) {
+      return false;
+    }
+    long enteredFrom = unvisited | (1L << head);
+    long leftFor = unvisited | (1L << start);
+    for (long bs = unvisited; bs != 0; bs &= bs - 1) {
+      int v = Long.numberOfTrailingZeros(bs);
+      if ((reversed.neighbors(v) & enteredFrom) == 0 || (graph.neighbors(v) & leftFor) == 0) {
+        return false;
+      }
+    }
+    return (reachable(head, enteredFrom) & unvisited) == unvisited;
+  }
+
+  /** The elements of {@code within} reachable from {@code from} without leaving it. */
+  private long reachable(int from, long within) {
+    long reached = 1L << from;
+    long frontier = reached;
+    while (frontier != 0) {
+      long next = 0;
+      for (long bs = frontier; bs != 0; bs &= bs - 1) {
+        next |= graph.neighbors(Long.numberOfTrailingZeros(bs));
+      }
+      frontier = next & within & ~reached;
+      reached |= frontier;
+    }
+    return reached;
+  }
+
+  /**
+   * Whether the (connected) graph on {@code vertices}, plus an extra edge between {@code a} and
+   * {@code b}, has an articulation point.
+   */
+  private boolean hasArticulationPoint(long vertices, int a, int b) {
+    int time = 0;
+    int depth = 0;
+    int rootChildren = 0;
+    long seen = 1L << a;
+    discovered[a] = low[a] = ++time;
+    stack[depth] = a;
+    untried[depth++] = neighbors(a, vertices, a, b);
+    while (depth > 0) {
+      int v = stack[depth - 1];
+      long bs = untried[depth - 1];
+      if (bs != 0) {
+        untried[depth - 1] = bs & (bs - 1);
+        int w = Long.numberOfTrailingZeros(bs);
+        if ((seen & (1L << w)) != 0) {
+          // Includes the edge back to v's parent, which can't make low[v] smaller than the
+          // parent's discovery time, and so can't hide an articulation point.
+          low[v] = Math.min(low[v], discovered[w]);
+        } else {
+          seen |= 1L << w;
+          discovered[w] = low[w] = ++time;
+          stack[depth] = w;
+          untried[depth++] = neighbors(w, vertices, a, b);
+        }
+        continue;
+      }
+      depth--;
+      if (depth == 0) {
+        break;
+      }
+      int parent = stack[depth - 1];
+      low[parent] = Math.min(low[parent], low[v]);
+      if (depth == 1) {
+        rootChildren++;
+      } else if (low[v] >= discovered[parent]) {
+        return true; // Nothing below v reaches above its parent, so removing the parent cuts it.
+      }
+    }
+    return rootChildren > 1;
+  }
+
+  private long neighbors(int v, long vertices, int a, int b) {
+    long result = graph.neighbors(v) & vertices;
+    if (v == a) {
+      result |= 1L << b;
+    } else if (v == b) {
+      result |= 1L << a;
+    }
+    return result;
+  }
+}
@@ -0,0 +1,158 @@
+package com.gradybward.hamiltonian;
+
+import java.util.Arrays;
+
+/**
+ * An insert-only collection of equal-length paths, keyed on their (startAndEnd, elements)
+ * bitstring pair, with at most one path stored per key.
+ *
+ * <p>
+ * Paths are identified by a dense int index (in insertion order). The keys live in two parallel
+ * long arrays, and the paths themselves are packed back to back into a single shared byte arena,
+ * so a stored path costs 16 bytes of key, its length in bytes, and a slot or two of the int
+ * open-addressing table used to find it again. Nothing is allocated per path.
+ */
+final class PathStore {
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  private final int pathLength;
+  private int size;
+  private long[] startAndEnds;
+  private long[] elementSets;
+  private byte[] arena;
+  // Open addressing, linear probing. Each slot holds (index + 1) of a path, or 0 if empty.
+  private int[] table;
+
+  PathStore(int pathLength) {
+    this.pathLength = pathLength;
+    startAndEnds = new long[INITIAL_CAPACITY];
+    elementSets = new long[INITIAL_CAPACITY];
+    arena = new byte[INITIAL_CAPACITY * pathLength];
+    table = new int[INITIAL_CAPACITY * 2];
+  }
+
+  int pathLength() {
+    return pathLength;
+  }
+
+  int size() {
+    return size;
+  }
+
+  /** The memory held by this store's arrays, in bytes, counting their unused capacity. */
+  long bytes() {
+    return 2L * Long.BYTES * startAndEnds.length + arena.length
+        + (long) Integer.BYTES * table.length;
+  }
+
+  long startAndEnd(int path) {
+    return startAndEnds[path];
+  }
+
+  long elements(int path) {
+    return elementSets[path];
+  }
+
+  byte get(int path, int position) {
+    return arena[path * pathLength + position];
+  }
+
+  byte first(int path) {
+    return arena[path * pathLength];
+  }
+
+  byte last(int path) {
+    return arena[path * pathLength + pathLength - 1];
+  }
+
+  /** Copies the given path into {@code destination}, starting at {@code offset}. */
+  void copy(int path, byte[] destination, int offset) {
+    System.arraycopy(arena, path * pathLength, destination, offset, pathLength);
+  }
+
+  /** Returns the index of the path stored under the given key, or -1 if there isn't one. */
+  int find(long startAndEnd, long elements) {
+    int mask = table.length - 1;
+    for (int slot = hash(startAndEnd, elements) & mask;; slot = (slot + 1) & mask) {
+      int path = table[slot] - 1;
+      if (path < 0) {
+        return -1;
+      }
+      if (elementSets[path] == elements && startAndEnds[path] == startAndEnd) {
+        return path;
+      }
+    }
+  }
+
+  /**
+   * Stores the first {@link #pathLength()} bytes of {@code path} under the given key, unless a
+   * path is already stored under it. Returns true if the path was added.
+   */
+  boolean add(long startAndEnd, long elements, byte[] path) {
+    return add(startAndEnd, elements, path, 0);
+  }
+
+  /**
+   * Adds every path in {@code other} (in order) that isn't already stored here. Adding the paths
+   * of several stores one after another gives the same result as adding their paths directly.
+   */
+  void addAll(PathStore other) {
+    for (int path = 0; path < other.size; path++) {
+      add(other.startAndEnds[path], other.elementSets[path], other.arena, path * pathLength);
+    }
+  }
+
+  private boolean add(long startAndEnd, long elements, byte[] path, int offset) {
+    int mask = table.length - 1;
+    int slot = hash(startAndEnd, elements) & mask;
+    for (; table[slot] != 0; slot = (slot + 1) & mask) {
+      int existing = table[slot] - 1;
+      if (elementSets[existing] == elements && startAndEnds[existing] == startAndEnd) {
+        return false;
+      }
+    }
+    if (size == startAndEnds.length) {
+      grow();
+    }
+    int index = size++;
+    table[slot] = index + 1;
+    startAndEnds[index] = startAndEnd;
+    elementSets[index] = elements;
+    System.arraycopy(path, offset, arena, index * pathLength, pathLength);
+    if (size * 2 > table.length) {
+      rehash();
+    }
+    return true;
+  }
+
+  private void grow() {
+    int capacity = startAndEnds.length * 2;
+    if ((long) capacity * pathLength > Integer.MAX_VALUE) {
+      throw new IllegalStateException(
+          String.format("Cannot store more than %s paths of length %s.", size, pathLength));
+    }
+    startAndEnds = Arrays.copyOf(startAndEnds, capacity);
+    elementSets = Arrays.copyOf(elementSets, capacity);
+    arena = Arrays.copyOf(arena, capacity * pathLength);
+  }
+
+  private void rehash() {
+    table = new int[table.length * 2];
+    int mask = table.length - 1;
+    for (int i = 0; i < size; i++) {
+      int slot = hash(startAndEnds[i], elementSets[i]) & mask;
+      while (table[slot] != 0) {
+        slot = (slot + 1) & mask;
+      }
+      table[slot] = i + 1;
+    }
+  }
+
+  private static int hash(long startAndEnd, long elements) {
+    long h = startAndEnd * 0x9E3779B97F4A7C15L + elements;
+    h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+    h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+    return (int) (h ^ (h >>> 33));
+  }
+}
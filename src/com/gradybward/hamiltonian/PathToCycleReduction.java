@@ -0,0 +1,113 @@
+package com.gradybward.hamiltonian;
+
+import java.util.List;
+
+/**
+ * Finds Hamiltonian paths with solvers that only search for cycles, by adding one extra element.
+ *
+ * <p>
+ * Join the extra element to every other one. Every Hamiltonian cycle of that graph passes through
+ * it, and what's left once it's dropped is a Hamiltonian path of the original graph; likewise,
+ * every Hamiltonian path closes into such a cycle through the extra element. If the path's ends
+ * are fixed, the extra element is only joined to them (in a directed graph, by an arc from it to
+ * the start, and one from the end to it), so that the cycles found are exactly the paths between
+ * them, closed up.
+ *
+ * <p>
+ * The extra element is always the last one, so a solver finds paths in graphs of one element fewer
+ * than it finds cycles in.
+ */
+final class PathToCycleReduction {
+
+  private PathToCycleReduction() {}
+
+  /**
+   * {@code graph}, plus the extra vertex, joined to every vertex if {@code start} is -1, and only
+   * to {@code start} and {@code end} otherwise.
+   */
+  static BitGraph withExtraVertex(BitGraph graph, int start, int end, boolean directed) {
+    int n = graph.size();
+    if (n >= BitGraph.MAX_VERTICES) {
+      throw new IllegalArgumentException(String.format(
+          "Paths are found as cycles through an extra vertex of a BitGraph. "
+              + "Sizes greater than %s are not supported.",
+          BitGraph.MAX_VERTICES - 1));
+    }
+    long[] neighbors = new long[n + 1];
+    for (int v = 0; v < n; v++) {
+      neighbors[v] = graph.neighbors(v);
+      if (start < 0 || v == end || (!directed && v == start)) {
+        neighbors[v] |= 1L << n;
+      }
+    }
+    neighbors[n] = start < 0 ? graph.vertices() : 1L << start | (directed ? 0 : 1L << end);
+    return new BitGraph(neighbors);
+  }
+
+  /** Like {@link #withExtraVertex(BitGraph, int, int, boolean)}, for an undirected graph. */
+  static LargeBitGraph withExtraVertex(LargeBitGraph graph, int start, int end) {
+    int n = graph.size();
+    int words = LargeBitGraph.wordsFor(n + 1);
+    long[] neighbors = new long[(n + 1) * words];
+    for (int v = 0; v < n; v++) {
+      for (int w = 0; w < graph.words(); w++) {
+        neighbors[v * words + w] = graph.neighbors(v, w);
+      }
+      if (start < 0 || v == start || v == end) {
+        neighbors[v * words + (n >>> 6)] |= 1L << n;
+        neighbors[n * words + (v >>> 6)] |= 1L << v;
+      }
+    }
+    return new LargeBitGraph(n + 1, neighbors);
+  }
+
+  /**
+   * The path left by dropping the extra vertex from a cycle through it. If {@code start} isn't -1,
+   * the path is read in whichever direction runs from {@code start}.
+   */
+  static int[] pathOf(int[] cycle, int start) {
+    int n = cycle.length - 1;
+    int at = 0;
+    while (cycle[at] != n) {
+      at++;
+    }
+    int[] path = new int[n];
+    for (int i = 0; i < n; i++) {
+      path[i] = cycle[(at + 1 + i) % cycle.length];
+    }
+    if (start >= 0 && path[0] != start) {
+      for (int i = 0; i < n / 2; i++) {
+        int swap = path[i];
+        path[i] = path[n - 1 - i];
+        path[n - 1 - i] = swap;
+      }
+    }
+    return path;
+  }
+
+  /**
+   * The indexes of a path's {@code start} and {@code end} in {@code elements}. Throws an
+   * {@link IllegalArgumentException} unless they're distinct elements of the list.
+   */
+  static <T> int[] endIndexes(List<T> elements, T start, T end) {
+    int startIndex = elements.indexOf(start);
+    int endIndex = elements.indexOf(end);
+    if (startIndex < 0 || endIndex < 0 || startIndex == endIndex) {
+      throw new IllegalArgumentException(String.format(
+          "A path's ends must be distinct elements of the list, not %s and %s.", start, end));
+    }
+    return new int[] { startIndex, endIndex };
+  }
+
+  /**
+   * Throws an {@link IllegalArgumentException} unless {@code start} and {@code end} are distinct
+   * vertices of a graph of {@code n} vertices.
+   */
+  static void checkEnds(int n, int start, int end) {
+    if (start < 0 || start >= n || end < 0 || end >= n || start == end) {
+      throw new IllegalArgumentException(String.format(
+          "A path's ends must be distinct vertices of a graph of %s vertices, not %s and %s.", n,
+          start, end));
+    }
+  }
+}
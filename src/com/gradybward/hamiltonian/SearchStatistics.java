@@ -0,0 +1,66 @@
+package com.gradybward.hamiltonian;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects the counters behind a {@link SolverStatistics} while a solve runs.
+ *
+ * <p>
+ * Safe to share between the threads of a parallel or racing solve. Hot loops shouldn't report
+ * every step: they count locally, and report in batches (at stop checks, and when they finish).
+ */
+final class SearchStatistics {
+
+  /** Statistics that nobody will read, for callers that only want the answer. */
+  static SearchStatistics discarded() {
+    return new SearchStatistics();
+  }
+
+  private final AtomicLong nodesExpanded = new AtomicLong();
+  private final AtomicLong predicateCalls = new AtomicLong();
+  private final AtomicLong peakPathStoreBytes = new AtomicLong();
+  private final AtomicLong buildNanos = new AtomicLong();
+  private final AtomicLong reductionNanos = new AtomicLong();
+  private final AtomicLong searchNanos = new AtomicLong();
+  // Guarded by this.
+  private long[] pathsStoredByLength = new long[0];
+
+  void addNodesExpanded(long nodes) {
+    nodesExpanded.addAndGet(nodes);
+  }
+
+  void addPredicateCalls(long calls) {
+    predicateCalls.addAndGet(calls);
+  }
+
+  /** Records that {@code bytes} of path stores were held at once. */
+  void pathStoreBytes(long bytes) {
+    peakPathStoreBytes.accumulateAndGet(bytes, Math::max);
+  }
+
+  synchronized void pathsStored(int length, long paths) {
+    if (length >= pathsStoredByLength.length) {
+      pathsStoredByLength = Arrays.copyOf(pathsStoredByLength, length + 1);
+    }
+    pathsStoredByLength[length] += paths;
+  }
+
+  void addBuildNanos(long nanos) {
+    buildNanos.addAndGet(nanos);
+  }
+
+  void addReductionNanos(long nanos) {
+    reductionNanos.addAndGet(nanos);
+  }
+
+  void addSearchNanos(long nanos) {
+    searchNanos.addAndGet(nanos);
+  }
+
+  synchronized SolverStatistics snapshot() {
+    return new SolverStatistics(nodesExpanded.get(), pathsStoredByLength.clone(),
+        predicateCalls.get(), peakPathStoreBytes.get(), buildNanos.get(), reductionNanos.get(),
+        searchNanos.get());
+  }
+}
@@ -0,0 +1,18 @@
+package com.gradybward.hamiltonian;
+
+/**
+ * How many elements a solver accepts. Every solver in this package declares its limits this way,
+ * so that callers (and tests) can tell what a solver will take without knowing which one it is.
+ */
+interface SizeLimits {
+
+  /** The most elements this solver finds cycles among. */
+  int maxElements();
+
+  /**
+   * The most elements this solver finds paths among. That's one fewer than
+   * {@link #maxElements()} for solvers that find paths as cycles through an extra element (see
+   * {@link PathToCycleReduction}), and the same for those with a path search of their own.
+   */
+  int maxPathElements();
+}
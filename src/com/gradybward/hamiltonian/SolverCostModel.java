@@ -0,0 +1,145 @@
+package com.gradybward.hamiltonian;
+
+/**
+ * How {@link HamiltonianCycleSolver#auto()} guesses which backing algorithm will be fastest.
+ *
+ * <p>
+ * Every estimate is the log2 of an amount of work, worked out from the number of elements N, and
+ * the mean d and variance of the elements' degrees:
+ * <ul>
+ * <li>BFS: the number of half-length paths it stores, about N * b^(N/2), where b is the
+ * effective branching factor. Each step along a path has about d - 1 ways to go, but low-degree
+ * elements constrain paths far more than high-degree ones free them, so b is (d - 1) reduced by
+ * the variance (as the geometric mean of the degrees is).</li>
+ * <li>DFS: about N * b^(N * {@link #withDfsDegreeFactor(double) dfsDegreeFactor} / d). The more
+ * neighbors elements have, the sooner the DFS tends to stumble on a cycle (or the pruner proves
+ * there isn't one). With the default factor of 1.75, the DFS beats the BFS exactly when d > 3.5.
+ * That stops being true in dense graphs: there, the pruner can rarely prove that a path is a dead
+ * end, so a DFS that doesn't find a cycle early ends up trying the orderings of each element's
+ * neighbors, and the estimate is at least N * d!.</li>
+ * <li>DP: N * 2^N, plus {@link #withDpPenaltyLog2(double) dpPenaltyLog2}, and only up to
+ * {@link HamiltonianCycleDP#MAX_ELEMENTS} elements. Predictable, so the safe bet for dense graphs
+ * of 20 to 30 elements, where the DFS's factorial takes over.</li>
+ * </ul>
+ *
+ * <p>
+ * The BFS and DP are also ruled out entirely when the memory they're expected to need is more than
+ * {@link #withMaxMemoryBytes(long) maxMemoryBytes}, which defaults to
+ * {@link Runtime#maxMemory()}. The DP's table is 2^(N-1) ints. A stored BFS path costs its key
+ * (two longs, or for the LargeBFS, an int of ends and a long per 64 elements), one byte per step
+ * (a short for the LargeBFS), and two int slots of hash table; the estimate doubles that, since a
+ * store grows by doubling its arrays.
+ *
+ * <p>
+ * The defaults follow the measurements behind the README's advice. Tune them if your graphs
+ * disagree.
+ */
+public final class SolverCostModel {
+
+  private static final SolverCostModel DEFAULTS =
+      new SolverCostModel(1.75, 0, Runtime.getRuntime().maxMemory());
+
+  private final double dfsDegreeFactor;
+  private final double dpPenaltyLog2;
+  private final long maxMemoryBytes;
+
+  private SolverCostModel(double dfsDegreeFactor, double dpPenaltyLog2, long maxMemoryBytes) {
+    this.dfsDegreeFactor = dfsDegreeFactor;
+    this.dpPenaltyLog2 = dpPenaltyLog2;
+    this.maxMemoryBytes = maxMemoryBytes;
+  }
+
+  public static SolverCostModel defaults() {
+    return DEFAULTS;
+  }
+
+  /** This model, with the DFS expected to beat the BFS above an average degree of twice this. */
+  public SolverCostModel withDfsDegreeFactor(double dfsDegreeFactor) {
+    return new SolverCostModel(dfsDegreeFactor, dpPenaltyLog2, maxMemoryBytes);
+  }
+
+  /** This model, with the DP's estimate multiplied by 2^{@code dpPenaltyLog2}. */
+  public SolverCostModel withDpPenaltyLog2(double dpPenaltyLog2) {
+    return new SolverCostModel(dfsDegreeFactor, dpPenaltyLog2, maxMemoryBytes);
+  }
+
+  /** This model, never picking a BFS or DP expected to need more than this many bytes. */
+  public SolverCostModel withMaxMemoryBytes(long maxMemoryBytes) {
+    return new SolverCostModel(dfsDegreeFactor, dpPenaltyLog2, maxMemoryBytes);
+  }
+
+  enum Engine {
+    BFS, DFS, DP
+  }
+
+  /** Picks the engine with the lowest estimate for a graph with the given degrees. */
+  Engine choose(int[] degrees) {
+    int n = degrees.length;
+    double log2N = log2(n);
+    double mean = mean(degrees);
+    double log2Branching = log2(branching(degrees));
+    double bfs = bfsFits(degrees) ? bfsLog2Paths(degrees) : Double.POSITIVE_INFINITY;
+    double dfs = log2N + Math.max(n * dfsDegreeFactor / mean * log2Branching, log2Factorial(mean));
+    double dp = dpFits(n) ? log2N + n + dpPenaltyLog2 : Double.POSITIVE_INFINITY;
+    if (dp < bfs && dp < dfs) {
+      return Engine.DP;
+    }
+    return bfs <= dfs ? Engine.BFS : Engine.DFS;
+  }
+
+  /** Whether the BFS (or for over 64 elements, the LargeBFS) is expected to fit in memory. */
+  boolean bfsFits(int[] degrees) {
+    int n = degrees.length;
+    // Paths are grown to about half the cycle, and the longest ones are the most numerous.
+    double steps = (n + 1) / 2;
+    double bytesPerPath = n <= BitGraph.MAX_VERTICES
+        ? 2 * Long.BYTES + steps + 2 * Integer.BYTES
+        : Integer.BYTES + Long.BYTES * LargeBitGraph.wordsFor(n) + Short.BYTES * steps
+            + 2 * Integer.BYTES;
+    return bfsLog2Paths(degrees) + log2(2 * bytesPerPath) <= log2(maxMemoryBytes);
+  }
+
+  /** Whether the DP can take a graph of {@code n} elements, and its table fits in memory. */
+  boolean dpFits(int n) {
+    return n <= HamiltonianCycleDP.MAX_ELEMENTS
+        && (long) Integer.BYTES << Math.max(n - 1, 0) <= maxMemoryBytes;
+  }
+
+  private static double bfsLog2Paths(int[] degrees) {
+    int n = degrees.length;
+    return log2(n) + n / 2.0 * log2(branching(degrees));
+  }
+
+  private static double branching(int[] degrees) {
+    double mean = mean(degrees);
+    double variance = 0;
+    for (int d : degrees) {
+      variance += (d - mean) * (d - mean);
+    }
+    variance /= degrees.length;
+    // exp(E[ln X]) is about E[X] * exp(-Var[X] / (2 * E[X]^2)), with X the ways on from a vertex.
+    double ways = Math.max(mean - 1, 1);
+    return Math.max(ways * Math.exp(-variance / (2 * ways * ways)), 1);
+  }
+
+  private static double mean(int[] degrees) {
+    double sum = 0;
+    for (int d : degrees) {
+      sum += d;
+    }
+    return sum / degrees.length;
+  }
+
+  /** log2(x!), for the whole part of x. */
+  private static double log2Factorial(double x) {
+    double result = 0;
+    for (int k = 2; k <= x; k++) {
+      result += log2(k);
+    }
+    return result;
+  }
+
+  private static double log2(double x) {
+    return Math.log(x) / Math.log(2);
+  }
+}
@@ -0,0 +1,62 @@
+package com.gradybward.hamiltonian;
+
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/** Tests which engine {@link HamiltonianCycleSolver#auto()} picks for graphs of known shapes. */
+public class SolverCostModelTest {
+
+  private final HamiltonianCycleAuto auto = new HamiltonianCycleAuto(SolverCostModel.defaults());
+
+  @Test
+  public void picksTheDpForADenseGraph() {
+    // Every element is adjacent to the 8 on either side of it, so d = 16.
+    HamiltonianCycleSolver engine = auto.engineFor(LargeBitGraph.of(circulant(25, 8)));
+    assertTrue(engine.getClass().toString(), engine instanceof HamiltonianCycleDP);
+  }
+
+  @Test
+  public void picksTheDfsForASparseGraph() {
+    HamiltonianCycleSolver engine = auto.engineFor(LargeBitGraph.of(circulant(25, 2)));
+    assertTrue(engine.getClass().toString(), engine instanceof HamiltonianCycleDFS);
+  }
+
+  @Test
+  public void picksTheBfsForACubicGraph() {
+    HamiltonianCycleSolver engine = auto.engineFor(LargeBitGraph.of(prism(12)));
+    assertTrue(engine.getClass().toString(), engine instanceof HamiltonianCycleBFS);
+  }
+
+  @Test
+  public void leavesOutEnginesThatWontFitInMemory() {
+    HamiltonianCycleAuto small =
+        new HamiltonianCycleAuto(SolverCostModel.defaults().withMaxMemoryBytes(1 << 20));
+    HamiltonianCycleSolver dense = small.engineFor(LargeBitGraph.of(circulant(25, 8)));
+    assertTrue(dense.getClass().toString(), dense instanceof HamiltonianCycleDFS);
+    HamiltonianCycleSolver cubic = small.engineFor(LargeBitGraph.of(prism(50)));
+    assertTrue(cubic.getClass().toString(), cubic instanceof HamiltonianCycleLargeDFS);
+  }
+
+  /** Every element adjacent to the {@code reach} elements on either side of it, round a cycle. */
+  private static int[][] circulant(int n, int reach) {
+    int[][] result = new int[n][2 * reach];
+    for (int i = 0; i < n; i++) {
+      for (int k = 1; k <= reach; k++) {
+        result[i][2 * k - 2] = (i + k) % n;
+        result[i][2 * k - 1] = (i + n - k) % n;
+      }
+    }
+    return result;
+  }
+
+  /** Two cycles of {@code n} elements, with each element joined to its twin on the other. */
+  private static int[][] prism(int n) {
+    int[][] result = new int[2 * n][];
+    for (int i = 0; i < n; i++) {
+      result[i] = new int[] { (i + 1) % n, (i + n - 1) % n, i + n };
+      result[i + n] = new int[] { (i + 1) % n + n, (i + n - 1) % n + n, i };
+    }
+    return result;
+  }
+}
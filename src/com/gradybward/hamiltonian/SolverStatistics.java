@@ -0,0 +1,85 @@
+package com.gradybward.hamiltonian;
+
+import java.time.Duration;
+
+/**
+ * How much work a solve did, for tuning which solver to use and how much capacity to give it.
+ *
+ * <p>
+ * Counters a solver doesn't have are zero: only the BFS engines store paths, for example. When
+ * engines race (see {@link HamiltonianCycleSolver#portfolio()}), the counters add up the work of
+ * every engine, including the ones that lost, up to when the result was returned.
+ */
+public final class SolverStatistics {
+
+  private final long nodesExpanded;
+  private final long[] pathsStoredByLength;
+  private final long predicateCalls;
+  private final long peakPathStoreBytes;
+  private final long buildNanos;
+  private final long reductionNanos;
+  private final long searchNanos;
+
+  SolverStatistics(long nodesExpanded, long[] pathsStoredByLength, long predicateCalls,
+      long peakPathStoreBytes, long buildNanos, long reductionNanos, long searchNanos) {
+    this.nodesExpanded = nodesExpanded;
+    this.pathsStoredByLength = pathsStoredByLength;
+    this.predicateCalls = predicateCalls;
+    this.peakPathStoreBytes = peakPathStoreBytes;
+    this.buildNanos = buildNanos;
+    this.reductionNanos = reductionNanos;
+    this.searchNanos = searchNanos;
+  }
+
+  /**
+   * Search steps taken: paths extended by the DFS engines and paths grown by the BFS engines (each
+   * into all of its extensions), or subsets filled in by the DP.
+   */
+  public long nodesExpanded() {
+    return nodesExpanded;
+  }
+
+  /**
+   * How many distinct paths the BFS engines stored of each length, indexed by length (so the first
+   * two entries are always zero), up to the longest length they reached.
+   */
+  public long[] pathsStoredByLength() {
+    return pathsStoredByLength.clone();
+  }
+
+  /** Calls made to the adjacency function. */
+  public long predicateCalls() {
+    return predicateCalls;
+  }
+
+  /**
+   * The most memory held at once by the BFS engines' stored paths (or by the DP's table), in
+   * bytes. Counts allocated capacity, not just what's in use.
+   */
+  public long peakPathStoreBytes() {
+    return peakPathStoreBytes;
+  }
+
+  /** Time spent calling the adjacency function to build the graph. */
+  public Duration buildTime() {
+    return Duration.ofNanos(buildNanos);
+  }
+
+  /** Time spent stripping out edges that can't be in a cycle, before searching. */
+  public Duration reductionTime() {
+    return Duration.ofNanos(reductionNanos);
+  }
+
+  /** Time spent searching the (reduced) graph. */
+  public Duration searchTime() {
+    return Duration.ofNanos(searchNanos);
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "nodesExpanded=%s predicateCalls=%s peakPathStoreBytes=%s build=%s reduction=%s search=%s",
+        nodesExpanded, predicateCalls, peakPathStoreBytes, buildTime(), reductionTime(),
+        searchTime());
+  }
+}